@@ -1,1014 +1,5602 @@
-import javax.swing.*;
-import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.JTableHeader;
-import javax.swing.table.TableCellRenderer;
-import java.awt.*;
-import java.awt.event.*;
-import java.io.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.*;
-import java.util.List;
-import java.text.NumberFormat;
-import javax.tools.Tool;
-
-
-// Main class sa accounting app
-public class AccountingApp extends JFrame {
-
-    // --- Private Fields ---
-    private List<Account> accounts;
-    private List<Transaction> transactions;
-    private SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-    private NumberFormat currencyFormat; 
-
-    // UI Components
-    private DefaultTableModel transactionsTableModel;
-    private DefaultTableModel accountsTableModel;
-    private DefaultTableModel journalTableModel;
-    private DefaultTableModel ledgerTableModel;
-    private DefaultTableModel assetsTableModel;
-    private DefaultTableModel liabilitiesTableModel;
-    private JComboBox<String> ledgerAccountCombo;
-    private JComboBox<String> debitComboGlobal;
-    private JComboBox<String> creditComboGlobal;
-    private JTabbedPane mainTabbedPane; // Key component for navigation
-
-    // Design Colors
-    private final Color PRIMARY_BLUE = new Color(20, 50, 80); // Dark Blue
-    private final Color SECONDARY_MINT = new Color(0, 191, 165); // Mint Green/Teal
-    private final Color BACKGROUND_LIGHT = new Color(245, 248, 250);
-
-    public AccountingApp() {
-        try {
-            Image icon = Toolkit.getDefaultToolkit().getImage(AccountingApp.class.getResource("/img/accountingIcon.png"));
-            if (icon != null) {
-                setIconImage(icon);
-            } else {
-                System.err.println("Icon file not found. Check path: /img/accountingIcon.png");
-            }
-        } catch (Exception e) {
-            System.err.println("Error setting icon: " + e.getMessage());
-        }
-
-
-        setIconImage(Toolkit.getDefaultToolkit().getImage(getClass().getResource("/img/accountingIcon.png")));
-        // Set up formatting and data
-        setLayout(new BorderLayout());
-        sdf.setLenient(false);
-        accounts = new ArrayList<>();
-        transactions = new ArrayList<>();
-        addPredefinedAccounts();
-        
-        currencyFormat = NumberFormat.getNumberInstance(Locale.US);
-        currencyFormat.setMinimumFractionDigits(2);
-        currencyFormat.setMaximumFractionDigits(2);
-        
-        // Apply look and feel (Modernize the UI)
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            // Ignore if L&F can't be set
-        }
-
-        // Header/navbar
-        add(createHeader(), BorderLayout.NORTH);
-
-        // Tabbed Pane for main content
-        mainTabbedPane = new JTabbedPane();
-        mainTabbedPane.setBackground(BACKGROUND_LIGHT);
-        mainTabbedPane.setForeground(PRIMARY_BLUE);
-        mainTabbedPane.setFont(new Font("Arial", Font.BOLD, 14));
-
-        mainTabbedPane.addTab("Add New Transaction", createAddTransactionPanel());
-        mainTabbedPane.addTab("Transactions", createTransactionsPanel());
-        mainTabbedPane.addTab("Accounts", createAccountsPanel()); 
-        mainTabbedPane.addTab("General Journal", createGeneralJournalPanel());
-        mainTabbedPane.addTab("General Ledger", createGeneralLedgerPanel());
-        mainTabbedPane.addTab("Balance Sheet", createBalanceSheetPanel());
-
-        add(mainTabbedPane, BorderLayout.CENTER);
-        
-        setTitle("Accounting System");
-        setSize(1100, 700);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setVisible(true);
-
-        refreshAllViews();
-    }
-
-    // --- Currency Formatting ---
-    private String formatCurrency(double value) {
-        return currencyFormat.format(value);
-    }
-
-    private String formatAccounting(double value) {
-        if (value < 0) {
-            return "(" + formatCurrency(Math.abs(value)) + ")";
-        }
-        return currencyFormat.format(value);
-    }
-
-    // --- Data Classes (Serializable for Save/Open) ---
-    // Ensure all internal types are also Serializable
-    private static class Account implements Serializable {
-        private static final long serialVersionUID = 1L; 
-        private String accountNumber; 
-        private String name;
-        private String type;
-        private double balance;
-
-        public Account(String accountNumber, String name, String type, double initialBalance) {
-            this.accountNumber = accountNumber;
-            this.name = name;
-            this.type = type;
-            this.balance = initialBalance;
-        }
-
-        public String getAccountNumber() { return accountNumber; }
-        public String getName() { return name; }
-        public String getType() { return type; }
-        public double getBalance() { return balance; }
-
-        public void applyDebit(double amount) {
-            // Asset, Expense, DRAWING increase with Debit
-            if (type.equals("Asset") || type.equals("Expense") || name.equals("Owner's Drawing")) {
-                balance += amount;
-            } else {
-                // Liability, Revenue, CAPITAL decrease with Debit
-                balance -= amount;
-            }
-        }
-
-        public void applyCredit(double amount) {
-            // Liability, Revenue, CAPITAL increase with Credit
-            if (type.equals("Liability") || type.equals("Revenue") || name.equals("Owner's Capital")) {
-                balance += amount;
-            } else {
-                // Asset, Expense, DRAWING decrease with Credit
-                balance -= amount;
-            }
-        }
-    }
-    
-    private static class Transaction implements Serializable {
-        private static final long serialVersionUID = 1L;
-        private Date date;
-        private String description;
-        private String debitAccount;
-        private String creditAccount;
-        private double amount;
-
-        public Transaction(Date date, String description, String debitAccount, String creditAccount, double amount) {
-            this.date = date;
-            this.description = description;
-            this.debitAccount = debitAccount;
-            this.creditAccount = creditAccount;
-            this.amount = amount;
-        }
-
-        public Date getDate() { return date; }
-        public String getDescription() { return description; }
-        public String getDebitAccount() { return debitAccount; }
-        public String getCreditAccount() { return creditAccount; }
-        public double getAmount() { return amount; }
-    }
-
-    // --- Setup and Helper Methods ---
-
-    private JPanel createHeader() {
-        JPanel header = new JPanel(new BorderLayout());
-        header.setBackground(PRIMARY_BLUE); 
-        header.setBorder(new EmptyBorder(10, 15, 10, 15));
-
-        // Left Panel (Title and Quote)
-        JPanel titlePanel = new JPanel(new GridLayout(2, 1));
-        titlePanel.setOpaque(false);
-        
-        JLabel companyName = new JLabel("Accounting System");
-        companyName.setForeground(Color.WHITE);
-        companyName.setFont(new Font("Segoe UI", Font.BOLD, 28));
-        
-        JLabel systemQuote = new JLabel("Transactions • Accounts • General Journal • General Ledger • Balance Sheet");
-        systemQuote.setForeground(SECONDARY_MINT);
-        systemQuote.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        
-        titlePanel.add(companyName);
-        titlePanel.add(systemQuote);
-
-        // Right Panel (Buttons)
-        JPanel menuPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
-        menuPanel.setOpaque(false);
-        
-        // --- NEW BUTTONS ---
-        JButton homeBtn = createStyledButton("Home");
-        JButton aboutBtn = createStyledButton("About");
-        // --- END NEW BUTTONS ---
-        
-        JButton openBtn = createStyledButton("Open File");
-        JButton saveBtn = createStyledButton("Save");
-        
-        // --- ACTION LISTENERS FOR NEW BUTTONS ---
-        homeBtn.addActionListener(e -> mainTabbedPane.setSelectedIndex(0)); // Index 0 is "Add New Transaction"
-        aboutBtn.addActionListener(e -> createAboutDialog().setVisible(true));
-        // --- END ACTION LISTENERS ---
-
-        openBtn.addActionListener(e -> openFile());
-        saveBtn.addActionListener(e -> saveFile());
-
-        // Add new buttons to the menu panel
-        menuPanel.add(homeBtn);
-        menuPanel.add(aboutBtn);
-        menuPanel.add(openBtn);
-        menuPanel.add(saveBtn);
-
-        header.add(titlePanel, BorderLayout.WEST);
-        header.add(menuPanel, BorderLayout.EAST);
-
-        return header;
-    }
-    
-    /**
-     * Creates and returns the About dialog window.
-     */
-    private JDialog createAboutDialog() {
-        JDialog dialog = new JDialog(this, "About this Accounting System", true);
-        dialog.setLayout(new BorderLayout(15, 15));
-        dialog.setSize(450, 300);
-        dialog.setLocationRelativeTo(this);
-        dialog.setBackground(BACKGROUND_LIGHT);
-        dialog.setResizable(false);
-
-        JPanel content = new JPanel(new BorderLayout(10, 10));
-        content.setBorder(new EmptyBorder(20, 20, 20, 20));
-        content.setBackground(Color.WHITE);
-
-        JLabel title = new JLabel("Accounting System Overview", SwingConstants.CENTER);
-        title.setFont(new Font("Segoe UI", Font.BOLD, 18));
-        title.setForeground(PRIMARY_BLUE.darker());
-
-        JTextArea info = new JTextArea();
-        info.setText(
-            "This application simulates a simple proprietorship accounting system based on the double-entry method.\n\n" +
-            "Key functionalities:\n" +
-            "1. **Add New Transaction (Home):** Records debits and credits that must always balance.\n" +
-            "2. **Chart of Accounts:** Displays all existing accounts and their running balances.\n" +
-            "3. **General Journal:** Shows the chronological list of all posted transactions.\n" +
-            "4. **General Ledger:** Allows viewing the detailed activity (T-account) and running balance for any selected account.\n" +
-            "5. **Balance Sheet:** Automatically generates the fundamental financial statement (Assets = Liabilities + Equity).\n\n" +
-            "Data can be saved and loaded using the 'Save' and 'Open File' buttons."+
-            "This system is designed for educational purposes to illustrate basic accounting principles."+
-            "It is not intended for actual financial reporting or compliance with accounting standards."+
-            "Always consult a professional accountant for real-world accounting needs."+
-            "\n\nDeveloped by Group 1(MCNF) for CC-ACCTNG21"+
-            "\nMembers: \n- Turceno, James Gabriel\n- Abad, Alexandra\n- Taburnal, Phoebe Fatima\n- Arong, Dara San\n- Cañoneo, Mark\n- Ranes, Andrea"+
-
-            "\n\n© 2024 Accounting System by MCNF. All rights reserved."
-        );
-        info.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        info.setWrapStyleWord(true);
-        info.setLineWrap(true);
-        info.setEditable(false);
-        info.setBackground(Color.WHITE);
-        info.setCaretPosition(0); // Scroll to top
-
-        content.add(title, BorderLayout.NORTH);
-        content.add(new JScrollPane(info), BorderLayout.CENTER);
-        
-        JButton closeBtn = createStyledButton("Close");
-        closeBtn.addActionListener(e -> dialog.dispose());
-        
-        JPanel southPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        southPanel.add(closeBtn);
-        southPanel.setBackground(Color.WHITE);
-
-        dialog.add(content, BorderLayout.CENTER);
-        dialog.add(southPanel, BorderLayout.SOUTH);
-        
-        return dialog;
-    }
-    
-    // Utility to create styled buttons
-    private JButton createStyledButton(String text) {
-        JButton btn = new JButton(text);
-        btn.setBackground(SECONDARY_MINT);
-        btn.setForeground(PRIMARY_BLUE);
-        btn.setFont(new Font("Segoe UI", Font.BOLD, 12));
-        btn.setFocusPainted(false);
-        btn.setBorder(BorderFactory.createEmptyBorder(8, 15, 8, 15));
-        btn.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        return btn;
-    }
-
-    private void addPredefinedAccounts() {
-        String[][] predefined = {
-            {"1001","Cash","Asset"},
-            {"1010","Accounts Receivable","Asset"},
-            {"1020","Prepaid Expenses","Asset"},
-            {"1030","Inventory","Asset"},
-            {"1040","Fixed Assets","Asset"},
-            {"1050","Accumulated Depreciation","Asset"},
-            {"1060","Other Assets","Asset"},
-            {"2001","Accounts Payable","Liability"},
-            {"2010","Accrued Liabilities","Liability"},
-            {"2020","Taxes Payable","Liability"},
-            {"2030","Payroll Payable","Liability"},
-            {"2040","Notes Payable","Liability"},
-            {"3001","Owner's Capital","Equity"}, 
-            {"3002","Owner's Drawing","Equity"}, 
-            {"4001","Revenue","Revenue"},
-            {"4010","Sales returns and allowances","Revenue"},
-            {"5001","Cost of Goods Sold","Expense"},
-            {"5010","Advertising Expense","Expense"},
-            {"5020","Bank Fees","Expense"},
-            {"5030","Depreciation Expense","Expense"},
-            {"5040","Payroll Tax Expense","Expense"},
-            {"5050","Rent Expense","Expense"},
-            {"5060","Supplies Expense","Expense"},
-            {"5070","Utilities Expense","Expense"},
-            {"5080","Wages Expense","Expense"},
-            {"6001","Other Expenses","Expense"}
-        };
-
-        for (String[] acc : predefined) {
-            accounts.add(new Account(acc[0], acc[1], acc[2], 0.0));
-        }
-    }
-    
-    private String extractAccountName(String comboItem) {
-        return comboItem; 
-    }
-
-    private Account getAccountByName(String name) {
-        for (Account a : accounts) {
-            if (a.getName().equals(name)) return a;
-        }
-        return null;
-    }
-
-    // --- Data Persistence Methods (New) ---
-
-    // Data structure to hold data for serialization
-    private static class AccountingData implements Serializable {
-        private static final long serialVersionUID = 2L;
-        List<Account> accounts;
-        List<Transaction> transactions;
-
-        public AccountingData(List<Account> accounts, List<Transaction> transactions) {
-            this.accounts = accounts;
-            this.transactions = transactions;
-        }
-    }
-
-    private void saveFile() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Save Accounting File");
-        
-        int userSelection = fileChooser.showSaveDialog(this);
-        
-        if (userSelection == JFileChooser.APPROVE_OPTION) {
-            File fileToSave = fileChooser.getSelectedFile();
-            if (!fileToSave.getName().toLowerCase().endsWith(".dat")) {
-                fileToSave = new File(fileToSave.toString() + ".dat");
-            }
-            
-            try (FileOutputStream fileOut = new FileOutputStream(fileToSave);
-                 ObjectOutputStream objectOut = new ObjectOutputStream(fileOut)) {
-                
-                AccountingData data = new AccountingData(this.accounts, this.transactions);
-                objectOut.writeObject(data);
-                JOptionPane.showMessageDialog(this, "File saved successfully to:\n" + fileToSave.getAbsolutePath(), "Save Successful", JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
-    private void openFile() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Open Accounting File");
-        
-        int userSelection = fileChooser.showOpenDialog(this);
-        
-        if (userSelection == JFileChooser.APPROVE_OPTION) {
-            File fileToOpen = fileChooser.getSelectedFile();
-            
-            try (FileInputStream fileIn = new FileInputStream(fileToOpen);
-                 ObjectInputStream objectIn = new ObjectInputStream(fileIn)) {
-                
-                AccountingData data = (AccountingData) objectIn.readObject();
-                
-                this.accounts = data.accounts;
-                this.transactions = data.transactions;
-                
-                // Ensure accounts are re-initialized if file was empty or corrupted (safety check)
-                if (this.accounts.isEmpty()) addPredefinedAccounts();
-                
-                refreshAllViews();
-                
-                JOptionPane.showMessageDialog(this, "File loaded successfully from:\n" + fileToOpen.getAbsolutePath(), "Open Successful", JOptionPane.INFORMATION_MESSAGE);
-            } catch (FileNotFoundException ex) {
-                JOptionPane.showMessageDialog(this, "File not found.", "Open Error", JOptionPane.ERROR_MESSAGE);
-            } catch (IOException | ClassNotFoundException ex) {
-                JOptionPane.showMessageDialog(this, "Error opening file. Check the file format. Details: " + ex.getMessage(), "Open Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-    
-    // Helper method for creating styled labels
-    private JLabel createFormLabel(String text) {
-        JLabel lbl = new JLabel(text);
-        lbl.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        lbl.setForeground(PRIMARY_BLUE);
-        return lbl;
-    }
-
-
-    // --- Panel Creation Methods (Redesigned UI) ---
-
-    private JPanel createAddTransactionPanel() {
-        JPanel panel = new JPanel(new BorderLayout(15, 15));
-        panel.setBackground(BACKGROUND_LIGHT);
-        panel.setBorder(new EmptyBorder(30, 100, 30, 100)); // Added padding
-        
-        JLabel title = new JLabel("Post New Journal Entry");
-        title.setFont(new Font("Segoe UI", Font.BOLD, 22));
-        title.setForeground(PRIMARY_BLUE);
-        title.setHorizontalAlignment(SwingConstants.CENTER);
-        panel.add(title, BorderLayout.NORTH);
-
-        JPanel form = new JPanel(new GridBagLayout());
-        form.setBackground(Color.WHITE);
-        form.setBorder(BorderFactory.createLineBorder(PRIMARY_BLUE.darker(), 1));
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(12, 15, 12, 15);
-        gbc.fill = GridBagConstraints.HORIZONTAL;
-        gbc.weightx = 1.0;
-
-        JTextField dateField = new JTextField(sdf.format(new Date()));
-        JTextField descField = new JTextField();
-        debitComboGlobal = new JComboBox<>();
-        creditComboGlobal = new JComboBox<>();
-        JTextField amountField = new JTextField();
-
-        // Style Form Components
-        dateField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        descField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        amountField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        debitComboGlobal.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        creditComboGlobal.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        
-        refreshAccountCombos();
-        
-
-        gbc.gridx = 0; gbc.gridy = 0; form.add(createFormLabel("Date (YYYY-MM-DD):"), gbc);
-        gbc.gridx = 1; form.add(dateField, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 1; form.add(createFormLabel("Description:"), gbc);
-        gbc.gridx = 1; form.add(descField, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 2; form.add(createFormLabel("Debit Account:"), gbc);
-        gbc.gridx = 1; form.add(debitComboGlobal, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 3; form.add(createFormLabel("Credit Account:"), gbc);
-        gbc.gridx = 1; form.add(creditComboGlobal, gbc);
-
-        gbc.gridx = 0; gbc.gridy = 4; form.add(createFormLabel("Amount:"), gbc);
-        gbc.gridx = 1; form.add(amountField, gbc);
-        
-        panel.add(form, BorderLayout.CENTER);
-
-        // Buttons Panel
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
-        buttonPanel.setOpaque(false);
-        JButton postBtn = createStyledButton("Post Transaction (F5)");
-        JButton clearBtn = createStyledButton("Clear Fields (Esc)");
-        
-        postBtn.setBackground(SECONDARY_MINT.darker());
-        postBtn.setForeground(Color.WHITE);
-        clearBtn.setBackground(Color.LIGHT_GRAY);
-        clearBtn.setForeground(PRIMARY_BLUE);
-
-        buttonPanel.add(postBtn);
-        buttonPanel.add(clearBtn);
-        
-        panel.add(buttonPanel, BorderLayout.SOUTH);
-        
-        // Action listeners remain the same
-        postBtn.addActionListener(e -> postTransaction(dateField, descField, amountField));
-        clearBtn.addActionListener(e -> clearTransactionFields(dateField, descField, amountField));
-        
-        // Add Key Bindings (F5 to post, Esc to clear)
-        InputMap inputMap = panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
-        ActionMap actionMap = panel.getActionMap();
-
-        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), "post");
-        actionMap.put("post", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                postTransaction(dateField, descField, amountField);
-            }
-        });
-        
-        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "clear");
-        actionMap.put("clear", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                clearTransactionFields(dateField, descField, amountField);
-            }
-        });
-
-
-        return panel;
-    }
-    
-    // Extracted transaction logic
-    private void postTransaction(JTextField dateField, JTextField descField, JTextField amountField) {
-        String dateStr = dateField.getText().trim();
-        String desc = descField.getText().trim();
-        
-        String debitAccComboItem = (String) debitComboGlobal.getSelectedItem();
-        String creditAccComboItem = (String) creditComboGlobal.getSelectedItem();
-        String debitAccName = extractAccountName(debitAccComboItem);
-        String creditAccName = extractAccountName(creditAccComboItem);
-        
-        String amtStr = amountField.getText().trim();
-
-        Date date;
-        try {
-            date = sdf.parse(dateStr);
-        } catch (ParseException ex) {
-            JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.");
-            return;
-        }
-
-        double amount;
-        try {
-            amount = Double.parseDouble(amtStr);
-            if (amount <= 0) throw new NumberFormatException();
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this, "Amount must be a number greater than zero.");
-            return;
-        }
-
-        if (debitAccName == null || creditAccName == null) {
-            JOptionPane.showMessageDialog(this, "Select both debit and credit accounts.");
-            return;
-        }
-        if (debitAccName.equals(creditAccName)) {
-            JOptionPane.showMessageDialog(this, "Debit and credit accounts cannot be the same.");
-            return;
-        }
-
-        Account debitAcc = getAccountByName(debitAccName);
-        Account creditAcc = getAccountByName(creditAccName);
-        if (debitAcc == null || creditAcc == null) {
-            JOptionPane.showMessageDialog(this, "Selected account not found.");
-            return;
-        }
-
-        debitAcc.applyDebit(amount);
-        creditAcc.applyCredit(amount);
-
-        Transaction tx = new Transaction(date, desc, debitAccName, creditAccName, amount);
-        transactions.add(tx);
-
-        transactions.sort(Comparator.comparing(Transaction::getDate));
-
-        refreshAllViews();
-
-        JOptionPane.showMessageDialog(this, "Transaction posted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-        clearTransactionFields(dateField, descField, amountField);
-    }
-    
-    private void clearTransactionFields(JTextField dateField, JTextField descField, JTextField amountField) {
-        dateField.setText(sdf.format(new Date()));
-        descField.setText("");
-        amountField.setText("");
-        if (debitComboGlobal.getItemCount() > 0) debitComboGlobal.setSelectedIndex(0);
-        if (creditComboGlobal.getItemCount() > 0) creditComboGlobal.setSelectedIndex(0);
-    }
-
-
-    private JPanel createTransactionsPanel() {
-        JPanel panel = createStyledPanel();
-        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
-        top.setBackground(Color.WHITE);
-        top.setBorder(new EmptyBorder(10, 10, 10, 10));
-        JTextField searchField = new JTextField(30);
-        searchField.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-        JButton searchBtn = createStyledButton("Search");
-        
-        JLabel searchLabel = new JLabel("Search (date/description/account):");
-        searchLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        searchLabel.setForeground(PRIMARY_BLUE);
-        
-        top.add(searchLabel);
-        top.add(searchField);
-        top.add(searchBtn);
-
-        String[] columns = {"Date", "Description", "Debit Account", "Credit Account", "Amount"};
-        transactionsTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int r, int c) { return false; }
-        };
-        JTable table = createStyledTable(transactionsTableModel);
-        
-        searchBtn.addActionListener(e -> {
-            String query = searchField.getText().trim().toLowerCase();
-            filterTransactions(query);
-        });
-
-        searchField.addActionListener(e -> filterTransactions(searchField.getText().trim().toLowerCase()));
-
-        panel.add(top, BorderLayout.NORTH);
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        return panel;
-    }
-
-    private JPanel createAccountsPanel() {
-        JPanel panel = createStyledPanel();
-        
-        String[] columns = {"Account no.", "Account Name", "Type", "Current Balance"}; 
-        accountsTableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int r,int c){ return false; }
-        };
-        JTable table = createStyledTable(accountsTableModel);
-        
-        refreshAccountsTable();
-
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        return panel;
-    }
-
-    private JPanel createGeneralJournalPanel() {
-        JPanel panel = createStyledPanel();
-        String[] cols = {"Date", "Description", "Account", "Debit", "Credit"};
-        journalTableModel = new DefaultTableModel(cols, 0) {
-            public boolean isCellEditable(int r,int c){ return false; }
-        };
-        JTable table = createStyledTable(journalTableModel);
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        return panel;
-    }
-
-    private JPanel createGeneralLedgerPanel() {
-        JPanel panel = createStyledPanel();
-        ledgerAccountCombo = new JComboBox<>();
-        refreshLedgerAccountCombo();
-        
-        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
-        top.setBackground(Color.WHITE);
-        top.setBorder(new EmptyBorder(10, 10, 10, 10));
-        
-        JLabel selectLabel = new JLabel("Select Account:");
-        selectLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        selectLabel.setForeground(PRIMARY_BLUE);
-        
-        ledgerAccountCombo.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        
-        top.add(selectLabel);
-        top.add(ledgerAccountCombo);
-
-        String[] cols = {"Date", "Description", "Debit Account", "Credit Account", "Amount", "Running Balance"};
-        ledgerTableModel = new DefaultTableModel(cols, 0) {
-            public boolean isCellEditable(int r,int c){ return false; }
-        };
-        JTable table = createStyledTable(ledgerTableModel);
-
-        ledgerAccountCombo.addActionListener(e -> {
-            String acc = (String) ledgerAccountCombo.getSelectedItem();
-            if (acc != null) updateGeneralLedgerTable(acc);
-        });
-
-        panel.add(top, BorderLayout.NORTH);
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        return panel;
-    }
-
-    private JPanel createBalanceSheetPanel() {
-        JPanel panel = createStyledPanel();
-        panel.setLayout(new GridLayout(1,2, 10, 10)); // Added spacing between panels
-        
-        // ASSETS PANEL
-        JPanel assetsPanel = createStyledSubPanel("Assets");
-        String[] assetCols = {"Account Name", "Amount"};
-        assetsTableModel = new DefaultTableModel(assetCols, 0) {
-            public boolean isCellEditable(int r,int c){ return false; }
-        };
-        JTable assetsTable = createStyledTable(assetsTableModel);
-        assetsPanel.add(new JScrollPane(assetsTable), BorderLayout.CENTER);
-        JLabel totalAssetsLabel = createTotalLabel();
-        assetsPanel.add(totalAssetsLabel, BorderLayout.SOUTH);
-
-        // LIABILITIES AND EQUITY PANEL
-        JPanel liabilitiesPanel = createStyledSubPanel("Liabilities and Equity");
-        String[] liabCols = {"Account Name", "Amount"};
-        liabilitiesTableModel = new DefaultTableModel(liabCols, 0) {
-            public boolean isCellEditable(int r,int c){ return false; }
-        };
-        JTable liabTable = createStyledTable(liabilitiesTableModel);
-        liabilitiesPanel.add(new JScrollPane(liabTable), BorderLayout.CENTER);
-        JLabel totalLiabLabel = createTotalLabel();
-        liabilitiesPanel.add(totalLiabLabel, BorderLayout.SOUTH);
-
-        panel.add(assetsPanel);
-        panel.add(liabilitiesPanel);
-
-        Runnable updateLabels = () -> {
-            totalAssetsLabel.setText("Total Assets: " + formatAccounting(calculateTotalAssets()));
-            totalLiabLabel.setText("Total Liabilities & Equity: " + formatAccounting(calculateTotalLiabilitiesAndEquity()));
-        };
-
-        updateLabels.run();
-        panel.putClientProperty("updateLabels", updateLabels);
-        return panel;
-    }
-    
-    // Styled UI helpers
-    private JPanel createStyledPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        panel.setBackground(BACKGROUND_LIGHT);
-        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
-        return panel;
-    }
-    
-    private JPanel createStyledSubPanel(String titleText) {
-        JPanel panel = new JPanel(new BorderLayout(5, 5));
-        panel.setBackground(Color.WHITE);
-        panel.setBorder(BorderFactory.createTitledBorder(
-            BorderFactory.createLineBorder(PRIMARY_BLUE, 1),
-            titleText,
-            javax.swing.border.TitledBorder.LEADING,
-            javax.swing.border.TitledBorder.TOP,
-            new Font("Segoe UI", Font.BOLD, 16),
-            SECONDARY_MINT.darker()
-        ));
-        return panel;
-    }
-    
-    /**
-     * Creates a styled JTable, setting the header to dark blue 
-     * and minimizing selection/hover effects.
-     */
-    private JTable createStyledTable(DefaultTableModel model) {
-        JTable table = new JTable(model);
-        table.setAutoCreateRowSorter(true);
-        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        table.setRowHeight(25);
-        table.setFillsViewportHeight(true);
-        
-        // --- Header Styling Fixes (Row 1) ---
-        JTableHeader header = table.getTableHeader();
-        header.setFont(new Font("Segoe UI", Font.BOLD, 13));
-        final Color HEADER_BG = PRIMARY_BLUE.darker();
-        final Color HEADER_FG = Color.WHITE;
-
-        // 1. Set the fixed background and foreground colors
-        header.setBackground(HEADER_BG);
-        header.setForeground(HEADER_FG);
-        
-        // 2. Override the default header renderer to guarantee consistent colors 
-        //    and ignore selection/focus states (which cause the unwanted 'hover' effect).
-        header.setDefaultRenderer(new TableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable jTable, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                JLabel label = new JLabel(value.toString(), SwingConstants.CENTER);
-                label.setOpaque(true);
-                label.setBackground(HEADER_BG);
-                label.setForeground(HEADER_FG);
-                label.setFont(header.getFont());
-                label.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 1, Color.LIGHT_GRAY));
-                return label;
-            }
-        });
-
-        // --- Table Row Styling Fixes (Removing Hover on Data Rows) ---
-        // Minimize/remove visual hover/selection effect for data rows
-        Color defaultTableBackground = table.getBackground();
-        Color defaultTableForeground = table.getForeground();
-        table.setSelectionBackground(defaultTableBackground);
-        table.setSelectionForeground(defaultTableForeground);
-        
-        return table;
-    }
-    
-    private JLabel createTotalLabel() {
-        JLabel label = new JLabel("", SwingConstants.RIGHT);
-        label.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        label.setForeground(PRIMARY_BLUE);
-        label.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-        label.setBackground(new Color(230, 230, 230)); // Light gray background for total
-        label.setOpaque(true);
-        return label;
-    }
-    // End Styled UI helpers
-
-    private void filterTransactions(String query) {
-        transactionsTableModel.setRowCount(0);
-        for (int i = transactions.size()-1; i >= 0; i--) {
-            Transaction tx = transactions.get(i);
-            String dateStr = sdf.format(tx.getDate());
-            if (query.isEmpty()
-                    || dateStr.contains(query)
-                    || tx.getDescription().toLowerCase().contains(query)
-                    || tx.getDebitAccount().toLowerCase().contains(query)
-                    || tx.getCreditAccount().toLowerCase().contains(query)) {
-                transactionsTableModel.addRow(new Object[]{
-                        dateStr,
-                        tx.getDescription(),
-                        tx.getDebitAccount(),
-                        tx.getCreditAccount(),
-                        formatCurrency(tx.getAmount())
-                });
-            }
-        }
-    }
-
-    private void refreshAccountsTable() {
-        if (accountsTableModel == null) return;
-        accountsTableModel.setRowCount(0);
-        for (Account a : accounts) {
-            accountsTableModel.addRow(new Object[]{a.getAccountNumber(), a.getName(), a.getType(), formatAccounting(a.getBalance())});
-        }
-    }
-
-    private void updateGeneralLedgerTable(String accountName) {
-        ledgerTableModel.setRowCount(0);
-        Account acc = getAccountByName(accountName);
-        if (acc == null) return;
-
-        double running = 0.0;
-        
-        boolean normalBalanceIsDebit = acc.getType().equals("Asset") || acc.getType().equals("Expense") || acc.getName().equals("Owner's Drawing");
-
-        for (Transaction tx : transactions) {
-            double amount = tx.getAmount();
-            String dateStr = sdf.format(tx.getDate());
-            
-            // Debit Effect
-            if (tx.getDebitAccount().equals(accountName)) {
-                if (normalBalanceIsDebit) {
-                    running += amount; 
-                } else {
-                    running -= amount; 
-                }
-                ledgerTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
-                        formatCurrency(amount), 
-                        formatAccounting(running)});
-            }
-            
-            // Credit Effect
-            if (tx.getCreditAccount().equals(accountName)) {
-                if (normalBalanceIsDebit) {
-                    running -= amount; 
-                } else {
-                    running += amount; 
-                }
-                ledgerTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
-                        formatCurrency(amount), 
-                        formatAccounting(running)});
-            }
-        }
-    }
-
-    private List<String> getAllAccountNames() {
-        List<String> out = new ArrayList<>();
-        for (Account a : accounts) out.add(a.getName());
-        return out;
-    }
-
-    private void refreshAccountCombos() {
-        List<String> allAccountNames = getAllAccountNames();
-
-        if (debitComboGlobal != null) {
-            debitComboGlobal.removeAllItems();
-            for (String s : allAccountNames) debitComboGlobal.addItem(s);
-        }
-        if (creditComboGlobal != null) {
-            creditComboGlobal.removeAllItems();
-            for (String s : allAccountNames) creditComboGlobal.addItem(s);
-        }
-    }
-
-    private void refreshLedgerAccountCombo() {
-        if (ledgerAccountCombo == null) return;
-        ledgerAccountCombo.removeAllItems();
-        for (String s : getAllAccountNames()) ledgerAccountCombo.addItem(s);
-    }
-
-    // --- Refresh All Views ---
-
-    private void refreshAllViews() {
-        if (transactionsTableModel != null) {
-            filterTransactions("");
-        }
-        
-        refreshAccountsTable(); 
-
-        if (journalTableModel != null) {
-            journalTableModel.setRowCount(0);
-            for (Transaction tx : transactions) {
-                String dateStr = sdf.format(tx.getDate());
-                // debit row
-                journalTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(),
-                        formatCurrency(tx.getAmount()), ""});
-                // credit row
-                journalTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getCreditAccount(),
-                        "", formatCurrency(tx.getAmount())});
-            }
-        }
-
-        refreshLedgerAccountCombo();
-        if (ledgerAccountCombo != null && ledgerAccountCombo.getItemCount() > 0) {
-            String sel = (String) ledgerAccountCombo.getSelectedItem();
-            if (sel == null) sel = ledgerAccountCombo.getItemAt(0);
-            ledgerAccountCombo.setSelectedItem(sel);
-            updateGeneralLedgerTable(sel);
-        }
-
-        if (assetsTableModel != null && liabilitiesTableModel != null) {
-            assetsTableModel.setRowCount(0);
-            liabilitiesTableModel.setRowCount(0);
-            
-            for (Account a : accounts) {
-                if (a.getType().equals("Asset")) {
-                    assetsTableModel.addRow(new Object[]{a.getName(), formatAccounting(a.getBalance())});
-                } else if (a.getType().equals("Liability")) {
-                    liabilitiesTableModel.addRow(new Object[]{a.getName(), formatAccounting(a.getBalance())});
-                }
-            }
-            
-            double totalEquity = calculateProprietorshipEquity();
-            liabilitiesTableModel.addRow(new Object[]{"", ""}); // Separator
-            liabilitiesTableModel.addRow(new Object[]{"Owner's Equity (Ending Balance)", formatAccounting(totalEquity)});
-        }
-
-        refreshAccountCombos();
-
-        // run any UI label updaters (balance sheet totals)
-        if (mainTabbedPane != null) {
-            for (int i = 0; i < mainTabbedPane.getTabCount(); i++) {
-                Component c = mainTabbedPane.getComponentAt(i);
-                if (c instanceof JPanel) {
-                    Object prop = ((JPanel) c).getClientProperty("updateLabels");
-                    if (prop instanceof Runnable) ((Runnable) prop).run();
-                }
-            }
-        }
-    }
-    // --- End Refresh All Views ---
-    
-    // --- Financial Calculations ---
-    
-    private double calculateProprietorshipEquity() {
-        double capital = 0;
-        double drawing = 0;
-        double revenue = 0;
-        double expense = 0;
-
-        for (Account a : accounts) {
-            if (a.getName().equals("Owner's Capital")) {
-                capital = a.getBalance();
-            } else if (a.getName().equals("Owner's Drawing")) {
-                drawing = a.getBalance();
-            } else if (a.getType().equals("Revenue")) {
-                revenue += a.getBalance();
-            } else if (a.getType().equals("Expense")) {
-                expense += a.getBalance();
-            }
-        }
-
-        double netIncome = revenue - expense;
-        return capital + netIncome - drawing; 
-    }
-
-    private double calculateTotalAssets() {
-        double sum = 0;
-        for (Account a : accounts) if (a.getType().equals("Asset")) sum += a.getBalance();
-        return sum;
-    }
-
-    private double calculateTotalLiabilitiesAndEquity() {
-        double totalLiabilities = 0;
-        
-        for (Account a : accounts) {
-            if (a.getType().equals("Liability")) {
-                totalLiabilities += a.getBalance();
-            }
-        }
-        
-        double totalEquity = calculateProprietorshipEquity();
-        
-        return totalLiabilities + totalEquity; 
-    }
-
-    // --- Main Method ---
-    public static void main(String[] args) {
-        // Jframe_Icon fic = new Jframe_Icon();
-        // fic.setVisible(true);
-
-        SwingUtilities.invokeLater(() -> new AccountingApp());
-    }
-}
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.text.NumberFormat;
+import javax.tools.Tool;
+
+
+// Main class sa accounting app
+public class AccountingApp extends JFrame {
+
+    // --- Private Fields ---
+    private final LedgerEngine engine = new LedgerEngine(); // the book; this frame is one client of it
+    private JournalSource journalSource; // the engine's journal, or the open read-only archive
+    private MappedJournal archive;
+    private SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+    private NumberFormat currencyFormat; 
+
+    // UI Components
+    private TransactionsTableModel transactionsTableModel;
+    private DefaultTableModel accountsTableModel;
+    private JournalTableModel journalTableModel;
+    private LedgerTableModel ledgerTableModel;
+    private DefaultTableModel assetsTableModel;
+    private DefaultTableModel liabilitiesTableModel;
+    private JComboBox<String> ledgerAccountCombo;
+    private JComboBox<String> debitComboGlobal;
+    private JComboBox<String> creditComboGlobal;
+    private JTabbedPane mainTabbedPane; // Key component for navigation
+    private JPanel loadingPanel;
+    private JLabel loadingLabel;
+    private JProgressBar loadingBar;
+    private BookLoader loader; // non-null while openFile() is reading in the background
+
+    // View state kept so postings can update single rows
+    private final List<LedgerListener> ledgerListeners = new ArrayList<>();
+    private final Map<Account, Integer> balanceSheetRows = new HashMap<>();
+    private Date balanceSheetAsOf;  // null shows current balances
+    private long[] asOfBalances;    // by account position, for balanceSheetAsOf
+    private String transactionsQuery = "";
+    private javax.swing.Timer searchTimer;
+    private SearchWorker searchWorker;
+    private static final int SEARCH_DELAY_MS = 150;
+
+    // Book on disk: .acct snapshot plus the write-ahead log of later postings (held by the engine)
+    private File currentBook;
+    private boolean compacting;
+    private static final long COMPACT_MIN_RECORDS = 50_000;
+
+    // Design Colors
+    private final Color PRIMARY_BLUE = new Color(20, 50, 80); // Dark Blue
+    private final Color SECONDARY_MINT = new Color(0, 191, 165); // Mint Green/Teal
+    private final Color BACKGROUND_LIGHT = new Color(245, 248, 250);
+
+    public AccountingApp() {
+        try {
+            Image icon = Toolkit.getDefaultToolkit().getImage(AccountingApp.class.getResource("/img/accountingIcon.png"));
+            if (icon != null) {
+                setIconImage(icon);
+            } else {
+                System.err.println("Icon file not found. Check path: /img/accountingIcon.png");
+            }
+        } catch (Exception e) {
+            System.err.println("Error setting icon: " + e.getMessage());
+        }
+
+
+        setIconImage(Toolkit.getDefaultToolkit().getImage(getClass().getResource("/img/accountingIcon.png")));
+        // Set up formatting and data
+        setLayout(new BorderLayout());
+        sdf.setLenient(false);
+        journalSource = engine.journal();
+        addPredefinedAccounts();
+        
+        currencyFormat = NumberFormat.getNumberInstance(Locale.US);
+        currencyFormat.setMinimumFractionDigits(2);
+        currencyFormat.setMaximumFractionDigits(2);
+        
+        // Apply look and feel (Modernize the UI)
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            // Ignore if L&F can't be set
+        }
+
+        // Header/navbar
+        add(createHeader(), BorderLayout.NORTH);
+
+        // Tabbed Pane for main content
+        mainTabbedPane = new JTabbedPane();
+        mainTabbedPane.setBackground(BACKGROUND_LIGHT);
+        mainTabbedPane.setForeground(PRIMARY_BLUE);
+        mainTabbedPane.setFont(new Font("Arial", Font.BOLD, 14));
+
+        mainTabbedPane.addTab("Add New Transaction", createAddTransactionPanel());
+        mainTabbedPane.addTab("Transactions", createTransactionsPanel());
+        mainTabbedPane.addTab("Accounts", createAccountsPanel()); 
+        mainTabbedPane.addTab("General Journal", createGeneralJournalPanel());
+        mainTabbedPane.addTab("General Ledger", createGeneralLedgerPanel());
+        mainTabbedPane.addTab("Balance Sheet", createBalanceSheetPanel());
+
+        add(mainTabbedPane, BorderLayout.CENTER);
+        loadingPanel = createLoadingPanel();
+        add(loadingPanel, BorderLayout.SOUTH);
+        ledgerListeners.add(new ViewUpdater());
+        
+        setTitle("Accounting System");
+        setSize(1100, 700);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeJournalLog();
+            }
+        });
+        setLocationRelativeTo(null);
+        setVisible(true);
+
+        refreshAllViews();
+    }
+
+    // --- Currency Formatting ---
+    private String formatCurrency(long cents) {
+        return currencyFormat.format(Money.toBigDecimal(cents));
+    }
+
+    private String formatAccounting(long cents) {
+        if (cents < 0) {
+            return "(" + currencyFormat.format(Money.toBigDecimal(cents).abs()) + ")";
+        }
+        return formatCurrency(cents);
+    }
+
+    // --- Money ---
+    // Amounts are whole cents held in a plain long: exact like BigDecimal but with
+    // no allocation on the posting path. Arithmetic throws on overflow instead of
+    // wrapping, so a bad posting is rejected rather than corrupting a balance.
+    private static final class Money {
+        static final int SCALE = 2;
+
+        private Money() {}
+
+        /** Parses "1234.5" style input; more than two decimals is rejected, not rounded. */
+        static long parse(String text) {
+            try {
+                return new BigDecimal(text).setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            } catch (ArithmeticException ex) {
+                throw new NumberFormatException("Not a cent amount: " + text);
+            }
+        }
+
+        /** Converts a legacy double amount, rounding to the nearest cent. */
+        static long fromDouble(double value) {
+            return BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+
+        static BigDecimal toBigDecimal(long cents) {
+            return BigDecimal.valueOf(cents, SCALE);
+        }
+
+        static long add(long a, long b) { return Math.addExact(a, b); }
+        static long subtract(long a, long b) { return Math.subtractExact(a, b); }
+    }
+
+    // --- Data Classes (Serializable for Save/Open) ---
+    // Ensure all internal types are also Serializable
+    private static class Account implements Serializable {
+        private static final long serialVersionUID = 1L; 
+        private String accountNumber; 
+        private String name;
+        private String type;
+        private long balanceCents;
+        private transient AccountClass accountClass; // resolved once from name and type
+        private transient BalanceGroup group;
+        private transient BalanceTotals totals; // of the registry holding this account, if any
+        private transient int stripe;           // lock stripe and totals row, from its registry position
+
+        public Account(String accountNumber, String name, String type, long initialBalance) {
+            this.accountNumber = accountNumber;
+            this.name = name;
+            this.type = type;
+            this.balanceCents = initialBalance;
+            this.accountClass = AccountClass.of(name, type);
+            this.group = BalanceGroup.of(name, type);
+        }
+
+        public String getAccountNumber() { return accountNumber; }
+        public String getName() { return name; }
+        public String getType() { return type; }
+        public long getBalance() { return balanceCents; }
+        public BalanceGroup getGroup() { return group; }
+        public AccountClass getAccountClass() { return accountClass; }
+
+        // Asset, Expense and DRAWING carry a debit balance
+        public boolean isDebitNormal() { return accountClass.debitNormal; }
+
+        /** +1 where a debit raises the balance, -1 where it lowers it; a credit is the opposite. */
+        public long debitSign() { return accountClass.debitSign; }
+
+        public void applyDebit(long amount) {
+            setBalance(Money.add(balanceCents, accountClass.debitSign * amount));
+        }
+
+        public void applyCredit(long amount) {
+            setBalance(Money.subtract(balanceCents, accountClass.debitSign * amount));
+        }
+
+        // The group total moves first, so an overflow there leaves the balance untouched
+        private void setBalance(long cents) {
+            if (totals != null) totals.add(stripe, group, Money.subtract(cents, balanceCents));
+            balanceCents = cents;
+        }
+
+        // Files saved before amounts moved to cents carry a double "balance"
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField fields = in.readFields();
+            accountNumber = (String) fields.get("accountNumber", null);
+            name = (String) fields.get("name", null);
+            type = (String) fields.get("type", null);
+            balanceCents = fields.defaulted("balanceCents")
+                    ? Money.fromDouble(fields.get("balance", 0.0))
+                    : fields.get("balanceCents", 0L);
+            accountClass = AccountClass.of(name, type);
+            group = BalanceGroup.of(name, type);
+        }
+    }
+
+    // --- Account Classes ---
+    // Normal balance side of each kind of account. A contra account is reported in
+    // its section but carries the opposite side, as Owner's Drawing does in Equity.
+    private enum AccountClass {
+        ASSET(true, false),
+        LIABILITY(false, false),
+        EQUITY(false, false),
+        CONTRA_EQUITY(true, true),
+        REVENUE(false, false),
+        EXPENSE(true, false);
+
+        final boolean debitNormal;
+        final boolean contra;
+        final long debitSign;
+
+        AccountClass(boolean debitNormal, boolean contra) {
+            this.debitNormal = debitNormal;
+            this.contra = contra;
+            this.debitSign = debitNormal ? 1L : -1L;
+        }
+
+        static AccountClass of(String name, String type) {
+            if (name.equals("Owner's Drawing")) return CONTRA_EQUITY;
+            switch (type) {
+                case "Asset": return ASSET;
+                case "Liability": return LIABILITY;
+                case "Revenue": return REVENUE;
+                case "Expense": return EXPENSE;
+                default: return EQUITY;
+            }
+        }
+    }
+
+    // --- Balance Totals ---
+    // Where an account's balance counts on the Balance Sheet. Owner's Capital and
+    // Owner's Drawing are Equity accounts but enter proprietorship equity separately.
+    private enum BalanceGroup {
+        ASSETS, LIABILITIES, CAPITAL, DRAWING, REVENUE, EXPENSE, OTHER;
+
+        static BalanceGroup of(String name, String type) {
+            if (name.equals("Owner's Capital")) return CAPITAL;
+            if (name.equals("Owner's Drawing")) return DRAWING;
+            switch (type) {
+                case "Asset": return ASSETS;
+                case "Liability": return LIABILITIES;
+                case "Revenue": return REVENUE;
+                case "Expense": return EXPENSE;
+                default: return OTHER;
+            }
+        }
+    }
+
+    // Running sum of balances per group, moved by each posting instead of rescanning
+    // the chart of accounts. Sums are kept in one row per lock stripe and a row only
+    // changes under its stripe's lock (see LedgerEngine), so postings on disjoint
+    // accounts never write the same cell. A snapshot adds the rows up; the caller
+    // keeps postings out meanwhile so it never sees a debit without its credit.
+    private static final class BalanceTotals {
+        static final int STRIPES = 64; // at most 64: a compound entry's stripes fit one long bit mask
+        private static final int GROUPS = BalanceGroup.values().length;
+        private static final int ROW = 16; // longs per row: 128 bytes, so rows never share a cache line
+        private final long[] sums = new long[STRIPES * ROW];
+
+        void add(int stripe, BalanceGroup group, long delta) {
+            int i = stripe * ROW + group.ordinal();
+            sums[i] = Money.add(sums[i], delta);
+        }
+
+        void clear() {
+            Arrays.fill(sums, 0L);
+        }
+
+        /** Totals indexed by BalanceGroup ordinal. */
+        long[] snapshot() {
+            long[] totals = new long[GROUPS];
+            for (int row = 0; row < STRIPES; row++) {
+                for (int g = 0; g < GROUPS; g++) totals[g] = Money.add(totals[g], sums[row * ROW + g]);
+            }
+            return totals;
+        }
+    }
+    
+    // Read-side view of a journal entry; Transaction is one, mapped archives hand out flyweights.
+    // An entry is a list of lines, debits (positive) before credits (negative): a simple
+    // entry has two, a compound one as many as it needs. For a compound entry the
+    // Debit/Credit Account getters give a label for each side and getAmount() the total.
+    private interface JournalEntry {
+        Date getDate();
+        String getDescription();
+        String getDebitAccount();
+        String getCreditAccount();
+        long getAmount();
+
+        default int lineCount() { return 2; }
+        default String lineAccount(int line) { return line == 0 ? getDebitAccount() : getCreditAccount(); }
+        default long lineAmount(int line) { return line == 0 ? getAmount() : -getAmount(); }
+
+        /** The side's account if it has one line, otherwise how many lines it splits into. */
+        static String sideLabel(JournalEntry e, boolean debits) {
+            String first = null;
+            int count = 0;
+            for (int line = 0, n = e.lineCount(); line < n; line++) {
+                if (e.lineAmount(line) > 0 != debits) continue;
+                if (count++ == 0) first = e.lineAccount(line);
+            }
+            return count == 1 ? first : "Split (" + count + " lines)";
+        }
+    }
+
+    private static class Transaction implements Serializable, JournalEntry {
+        private static final long serialVersionUID = 1L;
+        private Date date;
+        private String description;
+        private String debitAccount;
+        private String creditAccount;
+        private long amountCents;
+        private String[] lineAccounts; // compound entries only: one account and signed amount per line
+        private long[] lineAmounts;
+
+        public Transaction(Date date, String description, String debitAccount, String creditAccount, long amount) {
+            this.date = date;
+            this.description = description;
+            this.debitAccount = debitAccount;
+            this.creditAccount = creditAccount;
+            this.amountCents = amount;
+        }
+
+        /** A compound entry; the lines are already checked to balance, debits first (see LedgerEngine). */
+        public Transaction(Date date, String description, String[] lineAccounts, long[] lineAmounts) {
+            this.date = date;
+            this.description = description;
+            this.lineAccounts = lineAccounts;
+            this.lineAmounts = lineAmounts;
+            for (long a : lineAmounts) if (a > 0) amountCents += a;
+            this.debitAccount = JournalEntry.sideLabel(this, true);
+            this.creditAccount = JournalEntry.sideLabel(this, false);
+        }
+
+        public Date getDate() { return date; }
+        public String getDescription() { return description; }
+        public String getDebitAccount() { return debitAccount; }
+        public String getCreditAccount() { return creditAccount; }
+        public long getAmount() { return amountCents; }
+
+        public boolean isCompound() { return lineAccounts != null; }
+
+        @Override
+        public int lineCount() { return lineAccounts == null ? 2 : lineAccounts.length; }
+
+        @Override
+        public String lineAccount(int line) {
+            if (lineAccounts != null) return lineAccounts[line];
+            return line == 0 ? debitAccount : creditAccount;
+        }
+
+        @Override
+        public long lineAmount(int line) {
+            if (lineAmounts != null) return lineAmounts[line];
+            return line == 0 ? amountCents : -amountCents;
+        }
+
+        // Files saved before amounts moved to cents carry a double "amount"
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField fields = in.readFields();
+            date = (Date) fields.get("date", null);
+            description = (String) fields.get("description", null);
+            debitAccount = (String) fields.get("debitAccount", null);
+            creditAccount = (String) fields.get("creditAccount", null);
+            amountCents = fields.defaulted("amountCents")
+                    ? Money.fromDouble(fields.get("amount", 0.0))
+                    : fields.get("amountCents", 0L);
+            lineAccounts = (String[]) fields.get("lineAccounts", null);
+            lineAmounts = (long[]) fields.get("lineAmounts", null);
+        }
+    }
+
+    // What the Transactions and General Journal tabs read, in date order
+    private interface JournalSource {
+        int size();
+        JournalEntry entry(int index);
+
+        /** Lines across all entries: the General Journal's rows. */
+        int lineCount();
+        /** Row of the entry's first line. */
+        int firstLine(int index);
+        /** Entry holding the line at row. */
+        int entryOfLine(int row);
+    }
+
+    // --- Date-ordered Journal ---
+    // Keeps transactions sorted by date in small chunks, so posting only shifts one
+    // chunk instead of re-sorting the whole book. Same-day postings keep posting order.
+    private static class Journal implements Iterable<Transaction>, JournalSource {
+        private static final int MAX_CHUNK = 1024;
+
+        private final List<ArrayList<Transaction>> chunks = new ArrayList<>();
+        private int[] chunkStart = new int[16]; // index of the first entry of each chunk
+        private int[] lineStart = new int[16];  // and of its first line
+        private int size;
+        private int lines;
+
+        public int size() { return size; }
+        public boolean isEmpty() { return size == 0; }
+
+        @Override
+        public JournalEntry entry(int index) { return get(index); }
+
+        @Override
+        public int lineCount() { return lines; }
+
+        @Override
+        public int firstLine(int index) {
+            if (index == size) return lines;
+            int c = chunkFor(index);
+            int first = chunkStart[c];
+            if (simple(c)) return lineStart[c] + 2 * (index - first);
+            int line = lineStart[c];
+            ArrayList<Transaction> chunk = chunks.get(c);
+            for (int i = first; i < index; i++) line += chunk.get(i - first).lineCount();
+            return line;
+        }
+
+        @Override
+        public int entryOfLine(int row) {
+            if (row < 0 || row >= lines) throw new IndexOutOfBoundsException("Line: " + row + ", Lines: " + lines);
+            int lo = 0, hi = chunks.size() - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (lineStart[mid] <= row) lo = mid; else hi = mid - 1;
+            }
+            if (simple(lo)) return chunkStart[lo] + (row - lineStart[lo]) / 2;
+            int line = lineStart[lo];
+            ArrayList<Transaction> chunk = chunks.get(lo);
+            int i = 0;
+            while ((line += chunk.get(i).lineCount()) <= row) i++;
+            return chunkStart[lo] + i;
+        }
+
+        // A chunk of simple entries only has two lines per entry, so rows map directly
+        private boolean simple(int c) {
+            int end = c + 1 < chunks.size() ? lineStart[c + 1] : lines;
+            return end - lineStart[c] == 2 * chunks.get(c).size();
+        }
+
+        public Transaction get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            int c = chunkFor(index);
+            return chunks.get(c).get(index - chunkStart[c]);
+        }
+
+        /** Inserts after every entry with the same or an earlier date; returns the new index. */
+        public int add(Transaction tx) {
+            Date date = tx.getDate();
+            int last = chunks.size() - 1;
+
+            // Common case: posting on or after the latest date is a plain append
+            if (last < 0 || !lastDate(last).after(date)) {
+                if (last < 0 || chunks.get(last).size() >= MAX_CHUNK) {
+                    insertChunk(last + 1, new ArrayList<>(), size, lines);
+                    last++;
+                }
+                chunks.get(last).add(tx);
+                lines += tx.lineCount();
+                return size++;
+            }
+
+            // First chunk whose last entry is dated after tx
+            int lo = 0, hi = last;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (lastDate(mid).after(date)) hi = mid; else lo = mid + 1;
+            }
+            ArrayList<Transaction> chunk = chunks.get(lo);
+            int pos = upperBound(chunk, date);
+            chunk.add(pos, tx);
+            int index = chunkStart[lo] + pos;
+            int n = tx.lineCount();
+            for (int c = lo + 1; c < chunks.size(); c++) {
+                chunkStart[c]++;
+                lineStart[c] += n;
+            }
+            size++;
+            lines += n;
+
+            if (chunk.size() > MAX_CHUNK) {
+                int half = chunk.size() / 2;
+                int tailLines = lineStart[lo];
+                for (int i = 0; i < half; i++) tailLines += chunk.get(i).lineCount();
+                ArrayList<Transaction> tail = new ArrayList<>(chunk.subList(half, chunk.size()));
+                chunk.subList(half, chunk.size()).clear();
+                insertChunk(lo + 1, tail, chunkStart[lo] + half, tailLines);
+            }
+            return index;
+        }
+
+        /** Replaces the contents; the entries are sorted once (stable) and packed into full chunks. */
+        public void setAll(Collection<Transaction> all) {
+            chunks.clear();
+            size = 0;
+            lines = 0;
+            List<Transaction> sorted = new ArrayList<>(all);
+            sorted.sort(Comparator.comparing(Transaction::getDate));
+            for (int from = 0; from < sorted.size(); from += MAX_CHUNK) {
+                int to = Math.min(from + MAX_CHUNK, sorted.size());
+                insertChunk(chunks.size(), new ArrayList<>(sorted.subList(from, to)), from, lines);
+                for (int i = from; i < to; i++) lines += sorted.get(i).lineCount();
+            }
+            size = sorted.size();
+        }
+
+        /** Index of the first entry dated after date; size() if there is none. */
+        public int indexAfter(Date date) {
+            int lo = 0, hi = chunks.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (lastDate(mid).after(date)) hi = mid; else lo = mid + 1;
+            }
+            return lo == chunks.size() ? size : chunkStart[lo] + upperBound(chunks.get(lo), date);
+        }
+
+        public List<Transaction> toList() {
+            List<Transaction> out = new ArrayList<>(size);
+            for (ArrayList<Transaction> chunk : chunks) out.addAll(chunk);
+            return out;
+        }
+
+        @Override
+        public Iterator<Transaction> iterator() {
+            return chunks.stream().flatMap(List::stream).iterator();
+        }
+
+        private Date lastDate(int chunk) {
+            ArrayList<Transaction> c = chunks.get(chunk);
+            return c.get(c.size() - 1).getDate();
+        }
+
+        private static int upperBound(List<Transaction> chunk, Date date) {
+            int lo = 0, hi = chunk.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (chunk.get(mid).getDate().after(date)) hi = mid; else lo = mid + 1;
+            }
+            return lo;
+        }
+
+        private int chunkFor(int index) {
+            int lo = 0, hi = chunks.size() - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (chunkStart[mid] <= index) lo = mid; else hi = mid - 1;
+            }
+            return lo;
+        }
+
+        private void insertChunk(int at, ArrayList<Transaction> chunk, int start, int firstLine) {
+            int n = chunks.size();
+            if (n + 1 > chunkStart.length) {
+                chunkStart = Arrays.copyOf(chunkStart, chunkStart.length * 2);
+                lineStart = Arrays.copyOf(lineStart, lineStart.length * 2);
+            }
+            System.arraycopy(chunkStart, at, chunkStart, at + 1, n - at);
+            System.arraycopy(lineStart, at, lineStart, at + 1, n - at);
+            chunkStart[at] = start;
+            lineStart[at] = firstLine;
+            chunks.add(at, chunk);
+        }
+    }
+
+    // --- Account Registry ---
+    // Chart of accounts in display order, indexed by name and by account number.
+    private static class AccountRegistry implements Iterable<Account> {
+        private final List<Account> accounts = new ArrayList<>();
+        private final Map<String, Integer> byName = new HashMap<>();
+        private final Map<String, Integer> byNumber = new HashMap<>();
+        private final BalanceTotals totals = new BalanceTotals();
+
+        public void add(Account account) {
+            if (byName.containsKey(account.getName())) {
+                throw new IllegalArgumentException("Duplicate account name: " + account.getName());
+            }
+            String number = account.getAccountNumber();
+            if (number != null && byNumber.containsKey(number)) {
+                throw new IllegalArgumentException("Duplicate account number: " + number);
+            }
+            byName.put(account.getName(), accounts.size());
+            if (number != null) byNumber.put(number, accounts.size());
+            account.stripe = accounts.size() & (BalanceTotals.STRIPES - 1);
+            accounts.add(account);
+            totals.add(account.stripe, account.getGroup(), account.getBalance());
+            account.totals = totals;
+        }
+
+        public void setAll(Collection<Account> all) {
+            for (Account a : accounts) a.totals = null;
+            accounts.clear();
+            byName.clear();
+            byNumber.clear();
+            totals.clear();
+            for (Account a : all) add(a);
+        }
+
+        public BalanceTotals totals() { return totals; }
+
+        public Account byName(String name) {
+            Integer i = byName.get(name);
+            return i == null ? null : accounts.get(i);
+        }
+
+        public Account byNumber(String accountNumber) {
+            Integer i = byNumber.get(accountNumber);
+            return i == null ? null : accounts.get(i);
+        }
+
+        /** Display position of the account, or -1 if it is not registered. */
+        public int indexOf(Account account) {
+            Integer i = byName.get(account.getName());
+            return i != null && accounts.get(i) == account ? i : -1;
+        }
+
+        public Account get(int index) { return accounts.get(index); }
+        public int size() { return accounts.size(); }
+        public boolean isEmpty() { return accounts.isEmpty(); }
+        public List<Account> toList() { return new ArrayList<>(accounts); }
+
+        @Override
+        public Iterator<Account> iterator() {
+            return Collections.unmodifiableList(accounts).iterator();
+        }
+    }
+
+    // What the General Ledger tab reads for one account
+    private interface LedgerSource {
+        int size();
+        JournalEntry entry(int row);
+        long runningBalance(int row);
+        /** Row of tx, or -1 if this source does not hold it. */
+        int indexOf(Transaction tx);
+    }
+
+    // --- Per-account Posting Index ---
+    // Each account's transactions in journal order with prefix running balances,
+    // so the ledger only touches the account's own activity. A backdated entry only
+    // marks later balances stale; they are recomputed once, up to the row a reader
+    // asks for, so a burst of slightly out-of-order postings costs no rescans.
+    private static class AccountPostings implements LedgerSource {
+        private final Account account;
+        private final List<Transaction> entries = new ArrayList<>();
+        private long[] running = new long[16];
+        private int settledRows; // running[] is current below this row
+
+        public AccountPostings(Account account) {
+            this.account = account;
+        }
+
+        @Override public int size() { return entries.size(); }
+        @Override public JournalEntry entry(int row) { return entries.get(row); }
+        public Transaction get(int row) { return entries.get(row); }
+
+        /** Balance after the given row, counted from zero like the ledger view. */
+        @Override
+        public long runningBalance(int row) { return settle(row); }
+
+        /** Running balance after the last entry dated on or before date; O(log n) once settled. */
+        public long balanceAt(Date date) {
+            int row = upperBound(date) - 1;
+            return row < 0 ? 0L : settle(row);
+        }
+
+        /** Part of the account's balance that predates every entry here. */
+        public long openingBalance() {
+            return entries.isEmpty() ? account.getBalance() : Money.subtract(account.getBalance(), settle(entries.size() - 1));
+        }
+
+        /** Inserts after any entry on the same or an earlier date; returns the row. */
+        public int add(Transaction tx) {
+            int pos = entries.size();
+            if (pos > 0 && entries.get(pos - 1).getDate().after(tx.getDate())) {
+                pos = upperBound(tx.getDate());
+            }
+            entries.add(pos, tx);
+            if (entries.size() > running.length) running = Arrays.copyOf(running, running.length * 2);
+            settledRows = Math.min(settledRows, pos); // rows from pos onward carry the new amount
+            return pos;
+        }
+
+        private long settle(int row) {
+            for (int r = settledRows; r <= row; r++) {
+                long before = r == 0 ? 0L : running[r - 1];
+                running[r] = Money.add(before, effect(entries.get(r)));
+            }
+            if (row >= settledRows) settledRows = row + 1;
+            return running[row];
+        }
+
+        @Override
+        public int indexOf(Transaction tx) {
+            for (int r = upperBound(tx.getDate()) - 1; r >= 0 && !entries.get(r).getDate().before(tx.getDate()); r--) {
+                if (entries.get(r) == tx) return r;
+            }
+            return -1;
+        }
+
+        // Debits (positive lines) raise a debit-normal account, credits lower it
+        private long effect(Transaction tx) {
+            long effect = 0L;
+            for (int line = 0, n = tx.lineCount(); line < n; line++) {
+                if (tx.lineAccount(line).equals(account.getName())) effect += account.debitSign() * tx.lineAmount(line);
+            }
+            return effect;
+        }
+
+        private int upperBound(Date date) {
+            int lo = 0, hi = entries.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (entries.get(mid).getDate().after(date)) hi = mid; else lo = mid + 1;
+            }
+            return lo;
+        }
+    }
+
+    // Concurrent postings each add to their own accounts, under those accounts' stripe locks
+    private static class PostingIndex {
+        private final Map<String, AccountPostings> byAccount = new ConcurrentHashMap<>();
+
+        public AccountPostings postings(Account account) {
+            AccountPostings p = byAccount.get(account.getName());
+            return p != null ? p : byAccount.computeIfAbsent(account.getName(), n -> new AccountPostings(account));
+        }
+
+        public void add(Transaction tx, AccountRegistry accounts) {
+            if (tx.isCompound()) {
+                // Once per account, however many lines it has
+                for (int line = 0, n = tx.lineCount(); line < n; line++) {
+                    Account a = accounts.byName(tx.lineAccount(line));
+                    if (a != null && !onEarlierLine(tx, line)) postings(a).add(tx);
+                }
+                return;
+            }
+            Account debit = accounts.byName(tx.getDebitAccount());
+            Account credit = accounts.byName(tx.getCreditAccount());
+            if (debit != null) postings(debit).add(tx);
+            if (credit != null && credit != debit) postings(credit).add(tx);
+        }
+
+        // Compound entries name registry accounts, so a repeat is usually the same String
+        static boolean onEarlierLine(JournalEntry tx, int line) {
+            String name = tx.lineAccount(line);
+            for (int k = 0; k < line; k++) if (tx.lineAccount(k).equals(name)) return true;
+            return false;
+        }
+
+        /** Rebuilds every account's postings from a journal already in date order. */
+        public void rebuild(Journal journal, AccountRegistry accounts) {
+            byAccount.clear();
+            for (Transaction tx : journal) add(tx, accounts);
+        }
+    }
+
+    // --- Search Index ---
+    // Inverted index for the Transactions search. Every distinct lowercase field
+    // value (description, account name, yyyy-MM-dd date) is a term holding the ids
+    // of its transactions; terms are found through their trigrams, so a query only
+    // checks the few terms sharing its rarest trigram instead of every transaction.
+    //
+    // Ids are given out in the order transactions are added, and the journal keeps
+    // same-day entries in that order too, so (date, id) is exactly journal order.
+    private static final class SearchIndex {
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        private Transaction[] byId = new Transaction[1024];
+        private long[] timeOf = new long[1024];
+        private int size;
+        private boolean inJournalOrder = true; // no backdated adds, so id order is journal order
+
+        private final Map<String, Term> terms = new HashMap<>();
+        private final List<Term> termList = new ArrayList<>();
+        private final Map<Long, Term> dateTerms = new HashMap<>();      // skips re-formatting repeated dates
+        private final Map<String, Term> accountTerms = new HashMap<>(); // skips re-lowercasing account names
+        // Recently seen descriptions, direct-mapped by hash: repeated ones skip re-lowercasing
+        private static final int DESC_CACHE = 256;
+        private final String[] descSeen = new String[DESC_CACHE];
+        private final Term[] descTerm = new Term[DESC_CACHE];
+        private long lastTime = Long.MIN_VALUE; // date of the last add, and its term
+        private Term lastDateTerm;
+        // Term numbers by trigram hash; a shared bucket only adds candidates that contains() rejects.
+        // Terms are added to it by the next search rather than on add, which keeps loading cheap.
+        private IntList[] grams = new IntList[GRAM_BUCKETS];
+        private int gramTerms; // terms already in grams
+        private static final int GRAM_BATCH = 1 << 14;
+        private static final int PARALLEL_TERMS = 100_000;
+
+        // Searches run on a worker thread while the EDT keeps adding postings
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private static final int GRAM_BUCKETS = 1 << 18;
+
+        // A term's transaction ids, kept in journal order
+        private final class Term {
+            final String text;
+            int[] ids = new int[2];
+            int count;
+
+            Term(String text) { this.text = text; }
+
+            void add(int id) {
+                if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+                int pos = count;
+                if (pos > 0 && timeOf[ids[pos - 1]] > timeOf[id]) {
+                    // Backdated: after every id on the same or an earlier date
+                    int lo = 0, hi = count;
+                    while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if (timeOf[ids[mid]] > timeOf[id]) hi = mid; else lo = mid + 1;
+                    }
+                    pos = lo;
+                    System.arraycopy(ids, pos, ids, pos + 1, count - pos);
+                }
+                ids[pos] = id;
+                count++;
+            }
+        }
+
+        private static final class IntList {
+            int[] values = new int[4];
+            int count;
+
+            void add(int v) {
+                if (count == values.length) values = Arrays.copyOf(values, count * 2);
+                values[count++] = v;
+            }
+        }
+
+        public int size() { return size; }
+        public Transaction transaction(int id) { return byId[id]; }
+
+        /** Id of the most recently added transaction. */
+        public int lastId() { return size - 1; }
+
+        /** True if id a comes after id b in the journal. */
+        public boolean isAfter(int a, int b) {
+            return timeOf[a] != timeOf[b] ? timeOf[a] > timeOf[b] : a > b;
+        }
+
+        public int add(Transaction tx) {
+            lock.writeLock().lock();
+            try {
+                if (size == byId.length) {
+                    byId = Arrays.copyOf(byId, size * 2);
+                    timeOf = Arrays.copyOf(timeOf, size * 2);
+                }
+                int id = size++;
+                byId[id] = tx;
+                long time = tx.getDate().getTime();
+                timeOf[id] = time;
+                if (id > 0 && timeOf[id - 1] > time) inJournalOrder = false;
+
+                Term date = time == lastTime ? lastDateTerm : dateTerms.get(time);
+                if (date == null) {
+                    date = term(dateFormat.format(tx.getDate()));
+                    dateTerms.put(time, date);
+                }
+                lastTime = time;
+                lastDateTerm = date;
+                Term desc = descriptionTerm(tx.getDescription());
+                // A transaction is listed once per distinct term
+                date.add(id);
+                if (desc != date) desc.add(id);
+                if (tx.isCompound()) {
+                    for (int line = 0, n = tx.lineCount(); line < n; line++) {
+                        Term t = accountTerm(tx.lineAccount(line));
+                        if (t != date && t != desc && !PostingIndex.onEarlierLine(tx, line)) t.add(id);
+                    }
+                    return id;
+                }
+                Term debit = accountTerm(tx.getDebitAccount());
+                Term credit = accountTerm(tx.getCreditAccount());
+                if (debit != date && debit != desc) debit.add(id);
+                if (credit != date && credit != desc && credit != debit) credit.add(id);
+                return id;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Ids below limit of transactions with a field containing query (lowercase), newest first. */
+        public int[] search(String query, int limit) {
+            indexNewTerms();
+            lock.readLock().lock();
+            try {
+                List<Term> hits = new ArrayList<>();
+                if (query.length() < 3) {
+                    if (termList.size() >= PARALLEL_TERMS) {
+                        hits = termList.parallelStream().filter(t -> t.text.contains(query)).collect(Collectors.toList());
+                    } else {
+                        for (Term t : termList) if (t.text.contains(query)) hits.add(t);
+                    }
+                } else {
+                    // Only terms holding the query's rarest trigram can contain it
+                    IntList rarest = null;
+                    for (int i = 0; i + 3 <= query.length(); i++) {
+                        IntList list = grams[gram(query, i)];
+                        if (list == null) return new int[0];
+                        if (rarest == null || list.count < rarest.count) rarest = list;
+                    }
+                    for (int k = 0; k < rarest.count; k++) {
+                        Term t = termList.get(rarest.values[k]);
+                        if (t.text.contains(query)) hits.add(t);
+                    }
+                }
+                int[] ids = merge(hits);
+                // Leave out postings made after the caller took limit
+                int n = 0;
+                for (int id : ids) if (id < limit) ids[n++] = id;
+                return n == ids.length ? ids : Arrays.copyOf(ids, n);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Merges the terms' id lists newest first; a transaction in several terms appears once
+        private int[] merge(List<Term> hits) {
+            if (hits.isEmpty()) return new int[0];
+            int total = 0;
+            for (Term t : hits) total += t.count;
+            int[] out = new int[total];
+            int n = 0;
+
+            if (hits.size() == 1) {
+                Term t = hits.get(0);
+                for (int k = t.count - 1; k >= 0; k--) out[n++] = t.ids[k];
+                return out;
+            }
+            if (inJournalOrder) {
+                // Ids sort straight into journal order
+                int[] all = new int[total];
+                for (Term t : hits) {
+                    System.arraycopy(t.ids, 0, all, n, t.count);
+                    n += t.count;
+                }
+                Arrays.sort(all);
+                n = 0;
+                for (int i = all.length - 1; i >= 0; i--) {
+                    if (n == 0 || out[n - 1] != all[i]) out[n++] = all[i];
+                }
+                return Arrays.copyOf(out, n);
+            }
+
+            int[] cursor = new int[hits.size()];
+            for (int h = 0; h < cursor.length; h++) cursor[h] = hits.get(h).count - 1;
+            PriorityQueue<Integer> heads = new PriorityQueue<>(cursor.length, (x, y) -> {
+                int a = hits.get(x).ids[cursor[x]], b = hits.get(y).ids[cursor[y]];
+                return a == b ? 0 : isAfter(a, b) ? -1 : 1;
+            });
+            for (int h = 0; h < cursor.length; h++) if (cursor[h] >= 0) heads.add(h);
+            while (!heads.isEmpty()) {
+                int h = heads.poll();
+                int id = hits.get(h).ids[cursor[h]--];
+                if (n == 0 || out[n - 1] != id) out[n++] = id;
+                if (cursor[h] >= 0) heads.add(h);
+            }
+            return Arrays.copyOf(out, n);
+        }
+
+        private Term term(String text) {
+            Term t = terms.get(text);
+            if (t != null) return t;
+            t = new Term(text);
+            terms.put(text, t);
+            termList.add(t);
+            return t;
+        }
+
+        // Works in batches so a posting on the EDT never waits long for the write lock
+        private void indexNewTerms() {
+            boolean more = true;
+            while (more) {
+                lock.writeLock().lock();
+                try {
+                    int end = Math.min(termList.size(), gramTerms + GRAM_BATCH);
+                    for (; gramTerms < end; gramTerms++) {
+                        String text = termList.get(gramTerms).text;
+                        for (int i = 0; i + 3 <= text.length(); i++) {
+                            int g = gram(text, i);
+                            IntList list = grams[g];
+                            if (list == null) list = grams[g] = new IntList();
+                            // A trigram repeated within the text lists the term once
+                            if (list.count == 0 || list.values[list.count - 1] != gramTerms) list.add(gramTerms);
+                        }
+                    }
+                    more = gramTerms < termList.size();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+
+        private Term descriptionTerm(String description) {
+            int slot = description.hashCode() & (DESC_CACHE - 1);
+            if (description.equals(descSeen[slot])) return descTerm[slot];
+            Term t = term(description.toLowerCase());
+            descSeen[slot] = description;
+            descTerm[slot] = t;
+            return t;
+        }
+
+        private Term accountTerm(String name) {
+            Term t = accountTerms.get(name);
+            if (t == null) {
+                t = term(name.toLowerCase());
+                accountTerms.put(name, t);
+            }
+            return t;
+        }
+
+        private static int gram(String s, int i) {
+            int h = (s.charAt(i) * 31 + s.charAt(i + 1)) * 31 + s.charAt(i + 2);
+            return (h ^ (h >>> 11)) & (GRAM_BUCKETS - 1);
+        }
+    }
+
+    // --- Ledger Engine ---
+    // The book without any UI: chart of accounts, date-ordered journal, per-account
+    // postings and search index, plus the journal log while the book is on disk.
+    // Every public method is thread-safe, so batch jobs, services and benchmarks can
+    // post and query from any thread without starting Swing.
+    //
+    // Many threads can post at once. structure is held shared by every posting and
+    // exclusively by anything that needs the whole book still (chart changes, totals,
+    // snapshots). A posting then locks its accounts' stripes, lower stripe first so
+    // no two postings can wait on each other, and moves balances, group totals and
+    // the accounts' postings; a compound entry does the same for all of its lines.
+    // Only the journal and search index are shared by all: entries are queued
+    // lock-free and whichever poster holds journalLock adds the whole queue, so
+    // other posters never wait for it.
+    //
+    // The Swing app is one client. Its table models read the live structures through
+    // accounts(), journal(), postings() and searchIndex() on the EDT, which is also
+    // the only thread it posts from; other clients use the locked queries instead.
+    private static final class LedgerEngine {
+        private final ReentrantReadWriteLock structure = new ReentrantReadWriteLock();
+        private final ReentrantLock[] stripes = new ReentrantLock[BalanceTotals.STRIPES];
+        private final ReentrantLock journalLock = new ReentrantLock();
+        private final ConcurrentLinkedQueue<Transaction> pending = new ConcurrentLinkedQueue<>();
+        private final Journal journal = new Journal();
+        private AccountRegistry accounts = new AccountRegistry();
+        private PostingIndex postings = new PostingIndex();
+        private SearchIndex search = new SearchIndex();
+        private JournalLog log; // null while the book has no file
+
+        LedgerEngine() {
+            for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantLock();
+        }
+
+        // What post() did, for clients that update views row by row
+        static final class Posting {
+            final Transaction tx;
+            final int index;         // position in the journal, or -1 if another poster is adding it
+            final Account[] accounts; // each account the entry moved, once
+
+            Posting(Transaction tx, int index, Account... accounts) {
+                this.tx = tx;
+                this.index = index;
+                this.accounts = accounts;
+            }
+        }
+
+        // One line of a compound entry as a client hands it in
+        static final class EntryLine {
+            final String account;
+            final boolean debit;
+            final long amount; // cents, greater than zero
+
+            private EntryLine(String account, boolean debit, long amount) {
+                this.account = account;
+                this.debit = debit;
+                this.amount = amount;
+            }
+
+            static EntryLine debit(String account, long amount) { return new EntryLine(account, true, amount); }
+            static EntryLine credit(String account, long amount) { return new EntryLine(account, false, amount); }
+        }
+
+        // A compound entry's lines checked against the chart: debits first, signed
+        // amounts, the accounts they move and the mask of stripes those accounts lock
+        private static final class CheckedLines {
+            final Account[] accounts;
+            final String[] names;
+            final long[] amounts;
+            long stripeMask;
+
+            CheckedLines(int n) {
+                accounts = new Account[n];
+                names = new String[n];
+                amounts = new long[n];
+            }
+        }
+
+        // One ledger row: the entry and the account's running balance after it
+        static final class LedgerLine {
+            final Transaction tx;
+            final long runningBalance;
+
+            LedgerLine(Transaction tx, long runningBalance) {
+                this.tx = tx;
+                this.runningBalance = runningBalance;
+            }
+        }
+
+        // A consistent copy of the book, detached from later postings
+        static final class Snapshot {
+            final AccountRegistry accounts;
+            final Journal journal;
+
+            Snapshot(AccountRegistry accounts, Journal journal) {
+                this.accounts = accounts;
+                this.journal = journal;
+            }
+        }
+
+        // --- Posting ---
+
+        /**
+         * Validates and posts one entry: balances, journal log, journal and indexes move
+         * together or not at all. Throws IllegalArgumentException for a bad entry,
+         * ArithmeticException if a balance would overflow and IOException if the log
+         * write fails.
+         */
+        public Posting post(Date date, String description, String debitName, String creditName, long amount) throws IOException {
+            checkEntry(debitName, creditName, amount);
+            structure.readLock().lock();
+            try {
+                Account debit = require(debitName);
+                Account credit = require(creditName);
+                Transaction tx = new Transaction(date, description, debitName, creditName, amount);
+
+                lockStripes(debit, credit);
+                try {
+                    applyPosting(debit, credit, amount);
+                    try {
+                        enqueue(tx);
+                    } catch (IOException ex) {
+                        applyPosting(credit, debit, amount); // reverse entry undoes the balances
+                        throw ex;
+                    }
+                    postings.add(tx, accounts);
+                } finally {
+                    unlockStripes(debit, credit);
+                }
+                return new Posting(tx, drainPending(tx), debit, credit);
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+
+        /**
+         * Posts a compound entry, e.g. a payroll run or an invoice with several lines,
+         * as one journal entry: every line moves or none does, with the same exceptions
+         * as the two-account post(). The lines must name existing accounts, be greater
+         * than zero and have debits equal to credits.
+         */
+        public Posting post(Date date, String description, List<EntryLine> lines) throws IOException {
+            structure.readLock().lock();
+            try {
+                CheckedLines checked = checkLines(lines);
+                Transaction tx = new Transaction(date, description, checked.names, checked.amounts);
+
+                lockStripes(checked.stripeMask);
+                try {
+                    applyLines(checked.accounts, checked.amounts);
+                    try {
+                        enqueue(tx);
+                    } catch (IOException ex) {
+                        reverseLines(checked.accounts, checked.amounts, checked.accounts.length);
+                        throw ex;
+                    }
+                    postings.add(tx, accounts);
+                } finally {
+                    unlockStripes(checked.stripeMask);
+                }
+                return new Posting(tx, drainPending(tx), distinct(checked.accounts));
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+
+        // One pass: every line is positive and names an account, no account is on both
+        // sides, and the sides balance. Debits fill the arrays from the front and credits
+        // from the back; reversing the credits afterwards keeps both sides in the order
+        // they were given. A per-side stripe mask means the other side is only searched
+        // when an account on it might be the same one.
+        // Caller holds structure at least shared.
+        private CheckedLines checkLines(List<EntryLine> lines) {
+            int n = lines.size();
+            CheckedLines out = new CheckedLines(n);
+            int debits = 0, credits = n;
+            long debitTotal = 0L, creditTotal = 0L;
+            long debitStripes = 0L, creditStripes = 0L;
+            for (EntryLine line : lines) {
+                if (line.amount <= 0) throw new IllegalArgumentException("Every line amount must be greater than zero.");
+                Account a = require(line.account);
+                long stripe = 1L << a.stripe;
+                int at;
+                if (line.debit) {
+                    if ((creditStripes & stripe) != 0 && contains(out.accounts, credits, n, a)) throw bothSides(a);
+                    debitStripes |= stripe;
+                    at = debits++;
+                    debitTotal = Money.add(debitTotal, line.amount);
+                } else {
+                    if ((debitStripes & stripe) != 0 && contains(out.accounts, 0, debits, a)) throw bothSides(a);
+                    creditStripes |= stripe;
+                    at = --credits;
+                    creditTotal = Money.add(creditTotal, line.amount);
+                }
+                out.accounts[at] = a;
+                out.names[at] = a.getName();
+                out.amounts[at] = line.debit ? line.amount : -line.amount;
+            }
+            out.stripeMask = debitStripes | creditStripes;
+            if (debits == 0 || debits == n) throw new IllegalArgumentException("A compound entry needs at least one debit and one credit line.");
+            if (debitTotal != creditTotal) {
+                throw new IllegalArgumentException("Entry does not balance: debits " + Money.toBigDecimal(debitTotal).toPlainString()
+                        + ", credits " + Money.toBigDecimal(creditTotal).toPlainString() + ".");
+            }
+            for (int i = debits, j = n - 1; i < j; i++, j--) {
+                Account a = out.accounts[i]; out.accounts[i] = out.accounts[j]; out.accounts[j] = a;
+                String name = out.names[i]; out.names[i] = out.names[j]; out.names[j] = name;
+                long amt = out.amounts[i]; out.amounts[i] = out.amounts[j]; out.amounts[j] = amt;
+            }
+            return out;
+        }
+
+        private static boolean contains(Account[] accounts, int from, int to, Account a) {
+            for (int i = from; i < to; i++) if (accounts[i] == a) return true;
+            return false;
+        }
+
+        private static IllegalArgumentException bothSides(Account a) {
+            return new IllegalArgumentException("Account " + a.getName() + " cannot be both debited and credited in one entry.");
+        }
+
+        private static Account[] distinct(Account[] accounts) {
+            Account[] out = new Account[accounts.length];
+            int n = 0;
+            next:
+            for (Account a : accounts) {
+                for (int k = 0; k < n; k++) if (out[k] == a) continue next;
+                out[n++] = a;
+            }
+            return Arrays.copyOf(out, n);
+        }
+
+        /**
+         * Posts the pipeline slots first..last under one exclusive hold, stamping each with
+         * its journal entry or the reason it was rejected. Holding structure exclusively,
+         * the pipeline's writer needs no account stripes.
+         */
+        void postSlots(PostingPipeline.Slot[] ring, int mask, long first, long last) {
+            structure.writeLock().lock();
+            lockJournal();
+            try {
+                for (long seq = first; seq <= last; seq++) {
+                    PostingPipeline.Slot slot = ring[(int) seq & mask];
+                    try {
+                        slot.tx = postExclusive(slot.date, slot.description, slot.debitAccount, slot.creditAccount, slot.amount);
+                    } catch (IllegalArgumentException ex) {
+                        slot.rejected = ex.getMessage();
+                    } catch (ArithmeticException ex) {
+                        slot.rejected = "Amount is too large for the account balance.";
+                    } catch (IOException ex) {
+                        slot.rejected = "Posting could not be written to the journal log: " + ex.getMessage();
+                    }
+                }
+            } finally {
+                journalLock.unlock();
+                structure.writeLock().unlock();
+            }
+        }
+
+        // Caller holds structure exclusively and journalLock
+        private Transaction postExclusive(Date date, String description, String debitName, String creditName, long amount) throws IOException {
+            checkEntry(debitName, creditName, amount);
+            Account debit = require(debitName);
+            Account credit = require(creditName);
+            applyPosting(debit, credit, amount);
+            Transaction tx = new Transaction(date, description, debitName, creditName, amount);
+            if (log != null) {
+                try {
+                    log.append(tx, accounts);
+                } catch (IOException ex) {
+                    applyPosting(credit, debit, amount); // reverse entry undoes the balances
+                    throw ex;
+                }
+            }
+            journal.add(tx);
+            postings.add(tx, accounts);
+            search.add(tx);
+            return tx;
+        }
+
+        private static void checkEntry(String debitName, String creditName, long amount) {
+            if (amount <= 0) throw new IllegalArgumentException("Amount must be greater than zero.");
+            if (debitName.equals(creditName)) throw new IllegalArgumentException("Debit and credit accounts cannot be the same.");
+        }
+
+        // Applies both sides or neither; a balance that would overflow rejects the posting.
+        // Callers posting to a shared registry hold both accounts' stripes.
+        static void applyPosting(Account debitAcc, Account creditAcc, long amount) {
+            debitAcc.applyDebit(amount);
+            try {
+                creditAcc.applyCredit(amount);
+            } catch (ArithmeticException ex) {
+                debitAcc.applyCredit(amount); // undo the debit side
+                throw ex;
+            }
+        }
+
+        // Applies every line (debits positive, credits negative) or none, like applyPosting
+        static void applyLines(Account[] accounts, long[] amounts) {
+            int done = 0;
+            try {
+                for (; done < accounts.length; done++) accounts[done].applyDebit(amounts[done]);
+            } catch (ArithmeticException ex) {
+                reverseLines(accounts, amounts, done);
+                throw ex;
+            }
+        }
+
+        private static void reverseLines(Account[] accounts, long[] amounts, int count) {
+            for (int i = count - 1; i >= 0; i--) accounts[i].applyCredit(amounts[i]);
+        }
+
+        /** Applies an entry read back from a file to registry's balances. */
+        static void applyEntry(AccountRegistry registry, Transaction tx) {
+            if (!tx.isCompound()) {
+                applyPosting(registry.byName(tx.getDebitAccount()), registry.byName(tx.getCreditAccount()), tx.getAmount());
+                return;
+            }
+            int n = tx.lineCount();
+            Account[] lineAccounts = new Account[n];
+            long[] amounts = new long[n];
+            for (int line = 0; line < n; line++) {
+                lineAccounts[line] = registry.byName(tx.lineAccount(line));
+                amounts[line] = tx.lineAmount(line);
+            }
+            applyLines(lineAccounts, amounts);
+        }
+
+        // Ordered by stripe, so two postings sharing accounts always lock in the same order
+        private void lockStripes(Account a, Account b) {
+            int first = Math.min(a.stripe, b.stripe), second = Math.max(a.stripe, b.stripe);
+            stripes[first].lock();
+            if (second != first) stripes[second].lock();
+        }
+
+        private void unlockStripes(Account a, Account b) {
+            int first = Math.min(a.stripe, b.stripe), second = Math.max(a.stripe, b.stripe);
+            if (second != first) stripes[second].unlock();
+            stripes[first].unlock();
+        }
+
+        // A compound entry's stripes as a bit mask (one bit per stripe), locked lowest bit first
+        private void lockStripes(long mask) {
+            for (long m = mask; m != 0; m &= m - 1) stripes[Long.numberOfTrailingZeros(m)].lock();
+        }
+
+        private void unlockStripes(long mask) {
+            for (long m = mask; m != 0; m &= m - 1) stripes[Long.numberOfTrailingZeros(m)].unlock();
+        }
+
+        // The queue takes entries in log order, so the journal always holds a prefix of the
+        // log; compaction relies on that when it drops the records a snapshot covers
+        private void enqueue(Transaction tx) throws IOException {
+            if (log == null) {
+                pending.add(tx);
+                return;
+            }
+            synchronized (log) {
+                log.append(tx, accounts);
+                pending.add(tx);
+            }
+        }
+
+        // Adds queued entries to the journal and search index if journalLock is free. A
+        // holder looks at the queue again after unlocking, so no entry is left behind
+        // when tryLock fails. Returns mine's journal index if this call added it.
+        private int drainPending(Transaction mine) {
+            int index = -1;
+            while (!pending.isEmpty() && journalLock.tryLock()) {
+                try {
+                    Transaction tx;
+                    while ((tx = pending.poll()) != null) {
+                        int i = journal.add(tx);
+                        search.add(tx);
+                        if (tx == mine) index = i;
+                    }
+                } finally {
+                    journalLock.unlock();
+                }
+            }
+            return index;
+        }
+
+        // For readers: waits for any drain in progress, then finishes the queue itself
+        private void lockJournal() {
+            journalLock.lock();
+            Transaction tx;
+            while ((tx = pending.poll()) != null) {
+                journal.add(tx);
+                search.add(tx);
+            }
+        }
+
+        /** Returns once every posting made so far is in the journal and search index. */
+        public void flush() {
+            structure.readLock().lock();
+            lockJournal();
+            journalLock.unlock();
+            structure.readLock().unlock();
+        }
+
+        public void addAccount(Account account) {
+            structure.writeLock().lock();
+            try {
+                accounts.add(account);
+            } finally {
+                structure.writeLock().unlock();
+            }
+        }
+
+        // --- Lookup and balances ---
+
+        public Account account(String name) {
+            structure.readLock().lock();
+            try {
+                return accounts.byName(name);
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+
+        public long balance(String accountName) {
+            structure.readLock().lock();
+            try {
+                Account a = require(accountName);
+                stripes[a.stripe].lock();
+                try {
+                    return a.getBalance();
+                } finally {
+                    stripes[a.stripe].unlock();
+                }
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+
+        /** Balance at the end of date; one binary search over the account's postings. */
+        public long balanceAt(String accountName, Date date) {
+            structure.readLock().lock();
+            try {
+                Account a = require(accountName);
+                stripes[a.stripe].lock();
+                try {
+                    AccountPostings p = postings.postings(a);
+                    return Money.add(p.openingBalance(), p.balanceAt(date));
+                } finally {
+                    stripes[a.stripe].unlock();
+                }
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+
+        /** Balance Sheet group totals, indexed by BalanceGroup ordinal; whole postings only. */
+        public long[] totals() {
+            structure.writeLock().lock();
+            try {
+                return accounts.totals().snapshot();
+            } finally {
+                structure.writeLock().unlock();
+            }
+        }
+
+        public int size() {
+            structure.readLock().lock();
+            lockJournal();
+            try {
+                return journal.size();
+            } finally {
+                journalLock.unlock();
+                structure.readLock().unlock();
+            }
+        }
+
+        // --- Queries ---
+
+        /** Entries dated from through to (both inclusive, either may be null), in journal order. */
+        public List<Transaction> transactions(Date from, Date to) {
+            structure.readLock().lock();
+            lockJournal();
+            try {
+                int start = from == null ? 0 : journal.indexAfter(new Date(from.getTime() - 1));
+                int end = to == null ? journal.size() : journal.indexAfter(to);
+                List<Transaction> out = new ArrayList<>(Math.max(0, end - start));
+                for (int i = start; i < end; i++) out.add(journal.get(i));
+                return out;
+            } finally {
+                journalLock.unlock();
+                structure.readLock().unlock();
+            }
+        }
+
+        /** The account's ledger between two dates (inclusive, either may be null). */
+        public List<LedgerLine> ledger(String accountName, Date from, Date to) {
+            structure.readLock().lock();
+            try {
+                Account a = require(accountName);
+                stripes[a.stripe].lock();
+                try {
+                    AccountPostings p = postings.postings(a);
+                    int start = from == null ? 0 : p.upperBound(new Date(from.getTime() - 1));
+                    int end = to == null ? p.size() : p.upperBound(to);
+                    List<LedgerLine> out = new ArrayList<>(Math.max(0, end - start));
+                    for (int r = start; r < end; r++) out.add(new LedgerLine(p.get(r), p.runningBalance(r)));
+                    return out;
+                } finally {
+                    stripes[a.stripe].unlock();
+                }
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+
+        /** Entries with a date, description or account containing query, newest first. */
+        public List<Transaction> search(String query) {
+            SearchIndex index;
+            int limit;
+            structure.readLock().lock();
+            lockJournal();
+            try {
+                index = search;
+                limit = index.size();
+            } finally {
+                journalLock.unlock();
+                structure.readLock().unlock();
+            }
+            // The index tolerates concurrent adds, so postings need not wait for a search
+            int[] ids = index.search(query.toLowerCase(), limit);
+            List<Transaction> out = new ArrayList<>(ids.length);
+            for (int id : ids) out.add(index.transaction(id));
+            return out;
+        }
+
+        /** Copies of the chart of accounts with their balances, all taken at one instant. */
+        public List<Account> chart() {
+            structure.writeLock().lock();
+            try {
+                List<Account> copies = new ArrayList<>(accounts.size());
+                for (Account a : accounts) {
+                    copies.add(new Account(a.getAccountNumber(), a.getName(), a.getType(), a.getBalance()));
+                }
+                return copies;
+            } finally {
+                structure.writeLock().unlock();
+            }
+        }
+
+        /** Every account's balance at the end of date, in chart order, all taken at one instant. */
+        public long[] balancesAt(Date date) {
+            structure.writeLock().lock();
+            try {
+                long[] balances = new long[accounts.size()];
+                for (int i = 0; i < balances.length; i++) {
+                    AccountPostings p = postings.postings(accounts.get(i));
+                    balances[i] = Money.add(p.openingBalance(), p.balanceAt(date));
+                }
+                return balances;
+            } finally {
+                structure.writeLock().unlock();
+            }
+        }
+
+        /** Copies accounts and journal at one instant; the copy can be written out at leisure. */
+        public Snapshot snapshot() {
+            structure.writeLock().lock();
+            lockJournal();
+            try {
+                AccountRegistry accountsCopy = new AccountRegistry();
+                List<Account> copies = new ArrayList<>(accounts.size());
+                for (Account a : accounts) {
+                    copies.add(new Account(a.getAccountNumber(), a.getName(), a.getType(), a.getBalance()));
+                }
+                accountsCopy.setAll(copies);
+                Journal journalCopy = new Journal();
+                journalCopy.setAll(journal.toList());
+                return new Snapshot(accountsCopy, journalCopy);
+            } finally {
+                journalLock.unlock();
+                structure.writeLock().unlock();
+            }
+        }
+
+        private Account require(String accountName) {
+            Account a = accounts.byName(accountName);
+            if (a == null) throw new IllegalArgumentException("Account not found: " + accountName);
+            return a;
+        }
+
+        // --- Book lifecycle ---
+        // Each takes structure exclusively, so no posting is in flight and the queue is empty.
+
+        /** Starts over with the given chart of accounts and an empty journal. */
+        public void reset(AccountRegistry chart) {
+            structure.writeLock().lock();
+            lockJournal();
+            try {
+                accounts = chart;
+                journal.setAll(Collections.<Transaction>emptyList());
+                postings = new PostingIndex();
+                search = new SearchIndex();
+            } finally {
+                journalLock.unlock();
+                structure.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Appends entries read from a file whose balances and indexes a loader is
+         * building separately; install() swaps those in once loading is done.
+         */
+        public void appendLoaded(List<Transaction> entries) {
+            structure.writeLock().lock();
+            lockJournal();
+            try {
+                for (Transaction tx : entries) journal.add(tx);
+            } finally {
+                journalLock.unlock();
+                structure.writeLock().unlock();
+            }
+        }
+
+        public void install(AccountRegistry loaded, PostingIndex index, SearchIndex searchIndex) {
+            structure.writeLock().lock();
+            try {
+                accounts = loaded;
+                postings = index;
+                search = searchIndex;
+            } finally {
+                structure.writeLock().unlock();
+            }
+        }
+
+        /** Re-derives every account's postings, after the chart changed under the journal. */
+        public void rebuildPostings() {
+            structure.writeLock().lock();
+            lockJournal();
+            try {
+                postings.rebuild(journal, accounts);
+            } finally {
+                journalLock.unlock();
+                structure.writeLock().unlock();
+            }
+        }
+
+        /** Makes log the book's journal log; returns the previous one for the caller to close. */
+        public JournalLog setLog(JournalLog newLog) {
+            structure.writeLock().lock();
+            try {
+                JournalLog previous = log;
+                log = newLog;
+                return previous;
+            } finally {
+                structure.writeLock().unlock();
+            }
+        }
+
+        public JournalLog log() {
+            structure.readLock().lock();
+            try {
+                return log;
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+
+        // --- Live structures for the posting thread ---
+
+        AccountRegistry accounts() { return accounts; }
+        Journal journal() { return journal; }
+        AccountPostings postings(Account account) { return postings.postings(account); }
+        SearchIndex searchIndex() { return search; }
+    }
+
+    // --- Posting Pipeline ---
+    // Lock-free ingestion for high volumes such as point-of-sale feeds. Producers
+    // claim a sequence, fill the pre-allocated slot it maps to and publish it; one
+    // writer thread takes runs of published slots, posts each run to the engine under
+    // a single exclusive hold (same checks as post()) and then acknowledges the run.
+    // Slots are reused only after their acknowledgement, so the steady state
+    // allocates nothing beyond the journal entries it keeps.
+    private static final class PostingPipeline implements Closeable {
+        private static final int MAX_BATCH = 4096;
+
+        // Told the outcome of every request, in sequence order, on the writer thread
+        interface Acknowledger {
+            /** tx is null when the request was rejected; reason then says why. */
+            void acknowledge(long sequence, Transaction tx, String reason);
+
+            /** Everything up to and including sequence has been acknowledged. */
+            default void endOfBatch(long sequence) { }
+        }
+
+        // One request; written by its producer, then read and stamped by the writer
+        static final class Slot {
+            private volatile long published = -1; // sequence whose request this holds
+            Date date;
+            String description;
+            String debitAccount;
+            String creditAccount;
+            long amount;
+            Transaction tx;  // set by the writer on success
+            String rejected; // set by the writer on failure
+        }
+
+        private final LedgerEngine engine;
+        private final Acknowledger acknowledger;
+        private final Slot[] ring;
+        private final int mask;
+        private final AtomicLong claimed = new AtomicLong(-1);
+        private volatile long processed = -1; // every slot up to here is acknowledged and free
+        private volatile boolean running = true;
+        private final Thread writer;
+
+        PostingPipeline(LedgerEngine engine, int capacity, Acknowledger acknowledger) {
+            if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+            this.engine = engine;
+            this.acknowledger = acknowledger;
+            this.ring = new Slot[capacity];
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) ring[i] = new Slot();
+            writer = new Thread(this::runWriter, "Posting writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        /**
+         * Queues one posting and returns its sequence. Waits only while the ring is full.
+         * date is kept by the journal entry, not copied.
+         */
+        public long publish(Date date, String description, String debitAccount, String creditAccount, long amount) {
+            if (!running) throw new IllegalStateException("Posting pipeline is closed");
+            long seq = claimed.incrementAndGet();
+            for (int spins = 0; seq - ring.length > processed; spins++) idle(spins);
+            Slot slot = ring[(int) seq & mask];
+            slot.date = date;
+            slot.description = description;
+            slot.debitAccount = debitAccount;
+            slot.creditAccount = creditAccount;
+            slot.amount = amount;
+            slot.published = seq; // volatile write hands the slot to the writer
+            return seq;
+        }
+
+        /** Waits until the request with this sequence has been posted or rejected. */
+        public void awaitProcessed(long sequence) {
+            for (int spins = 0; processed < sequence; spins++) idle(spins);
+        }
+
+        /** Finishes everything already published, then stops the writer. */
+        @Override
+        public void close() {
+            running = false;
+            awaitProcessed(claimed.get());
+            writer.interrupt();
+        }
+
+        private void runWriter() {
+            int spins = 0;
+            while (running || processed < claimed.get()) {
+                long first = processed + 1;
+                long last = first - 1;
+                while (last - first + 1 < MAX_BATCH && ring[(int) (last + 1) & mask].published == last + 1) last++;
+                if (last < first) {
+                    idle(spins++);
+                    continue;
+                }
+                spins = 0;
+                engine.postSlots(ring, mask, first, last);
+                for (long seq = first; seq <= last; seq++) {
+                    Slot slot = ring[(int) seq & mask];
+                    acknowledger.acknowledge(seq, slot.tx, slot.rejected);
+                    slot.date = null;
+                    slot.description = slot.debitAccount = slot.creditAccount = null;
+                    slot.tx = null;
+                    slot.rejected = null;
+                }
+                acknowledger.endOfBatch(last);
+                processed = last; // frees the run for producers
+            }
+        }
+
+        // Spin briefly, then yield, then back off to short parks
+        private static void idle(int spins) {
+            if (spins < 100) return;
+            if (spins < 200) Thread.yield();
+            else LockSupport.parkNanos(50_000L);
+        }
+    }
+
+    // --- HTTP Server Mode ---
+    // Runs the engine headless behind the JDK's built-in HTTP server, so other
+    // systems can push and pull entries without the Swing window:
+    //
+    //   java AccountingApp --server [--host 127.0.0.1] [--port 8080] [book.acct]
+    //
+    //   POST /entries                    NDJSON entries in, one NDJSON result per entry out
+    //   GET  /accounts                   chart of accounts with balances
+    //   GET  /journal?from=&to=          entries in journal order
+    //   GET  /ledger?account=&from=&to=  one account's entries with running balances
+    //   GET  /search?q=                  entries matching q, newest first
+    //   GET  /balance-sheet?asOf=        one JSON object
+    //
+    // Dates are yyyy-MM-dd and ranges are inclusive. An entry is {"date",
+    // "description", "debit", "credit", "amount"}; a compound one has "lines":
+    // [{"account", "debit"} or {"account", "credit"}, ...] instead of debit, credit
+    // and amount. Amounts are JSON numbers or strings with at most two decimals.
+    // Lists are written as they are produced and a bulk post answers each line once
+    // it is posted, so neither side holds a whole batch in memory.
+    //
+    // Every request runs on its own virtual thread where the JDK has them (21+) and
+    // on a pooled platform thread otherwise; the engine's striped locks let requests
+    // post side by side. With a book, postings go to its journal log and a bulk post
+    // reports "durable" once they have been synced to disk.
+    private static final class LedgerServer implements Closeable {
+        private static final String NDJSON = "application/x-ndjson";
+        private static final int BUFFER = 1 << 16;
+        private static final int FLUSH_LINES = 256;
+        private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+        private final LedgerEngine engine;
+        private final File book; // null keeps the book in memory only
+        private final HttpServer http;
+        private final ExecutorService executor;
+        private final AtomicBoolean compacting = new AtomicBoolean();
+
+        // A GET or POST handler; query holds the decoded query parameters
+        private interface Endpoint {
+            void serve(HttpExchange exchange, Map<String, String> query) throws IOException;
+        }
+
+        LedgerServer(LedgerEngine engine, File book, InetSocketAddress address) throws IOException {
+            this.engine = engine;
+            this.book = book;
+            http = HttpServer.create(address, 0);
+            executor = requestExecutor();
+            http.setExecutor(executor);
+            route("/entries", "POST", this::postEntries);
+            route("/accounts", "GET", this::getAccounts);
+            route("/journal", "GET", this::getJournal);
+            route("/ledger", "GET", this::getLedger);
+            route("/search", "GET", this::getSearch);
+            route("/balance-sheet", "GET", this::getBalanceSheet);
+        }
+
+        /**
+         * Starts a server from command-line arguments: [--host h] [--port p] [book.acct].
+         * A book that does not exist yet is created with the predefined chart.
+         */
+        static void run(String[] args) throws IOException {
+            String host = null;
+            int port = 8080;
+            File book = null;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--host")) {
+                    host = optionValue(args, ++i);
+                } else if (args[i].equals("--port")) {
+                    port = Integer.parseInt(optionValue(args, ++i));
+                } else if (args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + args[i] + "; use [--host h] [--port p] [book.acct]");
+                } else {
+                    book = new File(args[i]);
+                }
+            }
+
+            LedgerEngine engine = new LedgerEngine();
+            if (book != null && book.exists()) load(engine, book);
+            if (engine.accounts().isEmpty()) {
+                addPredefinedAccounts(engine);
+                engine.rebuildPostings();
+            }
+            if (book != null && engine.log() == null) {
+                JournalFile.writeAtomically(book, engine.accounts(), engine.journal());
+                engine.setLog(JournalLog.create(JournalLog.logFileFor(book), engine.size()));
+            }
+
+            InetSocketAddress address = host == null
+                    ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                    : new InetSocketAddress(host, port);
+            final LedgerServer server = new LedgerServer(engine, book, address);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException ex) {
+                    System.err.println("Error writing the journal log: " + ex.getMessage());
+                }
+            }, "Server shutdown"));
+            server.start();
+            System.out.println("Accounting server listening on http://" + address.getHostString() + ":" + server.port()
+                    + (book == null ? " (in memory only)" : " for " + book.getAbsolutePath()));
+        }
+
+        private static String optionValue(String[] args, int i) {
+            if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " needs a value");
+            return args[i];
+        }
+
+        // Reads a .acct book and replays its journal log, like BookLoader in the app
+        private static void load(LedgerEngine engine, File book) throws IOException {
+            if (JournalFile.isLegacyFile(book)) {
+                throw new IOException("Legacy .dat files cannot be served. Open it in the app and save it as .acct first.");
+            }
+            AccountingData data = JournalFile.read(book);
+            AccountRegistry loaded = new AccountRegistry();
+            loaded.setAll(data.accounts);
+            List<Transaction> entries = data.transactions;
+            long snapshotCount = entries.size();
+            File logFile = JournalLog.logFileFor(book);
+            JournalLog.Replay replay = JournalLog.replay(logFile, data.accounts, snapshotCount);
+            if (replay != null) {
+                for (Transaction tx : replay.transactions) LedgerEngine.applyEntry(loaded, tx);
+                entries = new ArrayList<>(entries);
+                entries.addAll(replay.transactions);
+            }
+
+            PostingIndex index = new PostingIndex();
+            SearchIndex search = new SearchIndex();
+            for (Transaction tx : entries) {
+                index.add(tx, loaded);
+                search.add(tx);
+            }
+            engine.appendLoaded(entries);
+            engine.install(loaded, index, search);
+            engine.setLog(replay == null
+                    ? JournalLog.create(logFile, snapshotCount)
+                    : JournalLog.reopen(logFile, replay, snapshotCount + replay.transactions.size()));
+        }
+
+        // A virtual thread per request on JDK 21+, looked up reflectively so the app
+        // still builds for Java 8; older JDKs get a cached pool of platform threads
+        private static ExecutorService requestExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                return Executors.newCachedThreadPool();
+            }
+        }
+
+        void start() {
+            http.start();
+        }
+
+        int port() {
+            return http.getAddress().getPort();
+        }
+
+        /**
+         * Stops taking requests, waits up to CLOSE_TIMEOUT_SECONDS for running ones to
+         * finish, then closes the journal log. The log stays attached, so a request still
+         * running after that is refused by the closed log rather than posted unlogged.
+         */
+        @Override
+        public void close() throws IOException {
+            http.stop(1);
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    System.err.println("Requests still running after " + CLOSE_TIMEOUT_SECONDS + " seconds; closing the journal log anyway");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            JournalLog log = engine.log();
+            if (log != null) log.close();
+        }
+
+        // --- Endpoints ---
+
+        private void route(String path, String method, Endpoint endpoint) {
+            http.createContext(path, exchange -> {
+                try {
+                    if (!exchange.getRequestURI().getPath().equals(path)) {
+                        sendError(exchange, 404, "No such endpoint: " + exchange.getRequestURI().getPath());
+                    } else if (!exchange.getRequestMethod().equals(method)) {
+                        exchange.getResponseHeaders().set("Allow", method);
+                        sendError(exchange, 405, "Use " + method + " for " + path);
+                    } else {
+                        endpoint.serve(exchange, query(exchange.getRequestURI().getRawQuery()));
+                    }
+                } catch (IllegalArgumentException ex) {
+                    // Parameters are checked before a response starts, so a 400 can still be sent
+                    if (exchange.getResponseCode() < 0) sendError(exchange, 400, ex.getMessage());
+                } catch (RuntimeException ex) {
+                    // Anything else is the server's fault; answer with a status, not a dropped connection
+                    String message = ex instanceof JournalLogException
+                            ? "Journal log write failed: " + ex.getCause().getMessage()
+                            : "Internal error: " + ex;
+                    System.err.println(exchange.getRequestMethod() + " " + path + ": " + message);
+                    if (exchange.getResponseCode() < 0) sendError(exchange, 500, message);
+                } finally {
+                    exchange.close();
+                }
+            });
+        }
+
+        // Reads NDJSON entries and posts each as it arrives; a bad line is reported and skipped.
+        // Results are flushed whenever no more input is buffered, so a client sending entries
+        // one at a time sees each answer, and at least every FLUSH_LINES lines in a bulk upload.
+        private void postEntries(HttpExchange exchange, Map<String, String> query) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), BUFFER);
+            long posted = 0, rejected = 0;
+            try (Writer out = ndjson(exchange)) {
+                String failure = null;
+                String text;
+                int lineNumber = 0;
+                while ((text = in.readLine()) != null) {
+                    lineNumber++;
+                    if (text.trim().isEmpty()) continue;
+                    try {
+                        postEntry(Json.parseObject(text));
+                        posted++;
+                        out.write("{\"line\":" + lineNumber + ",\"posted\":true}\n");
+                    } catch (IllegalArgumentException | ArithmeticException ex) {
+                        rejected++;
+                        String reason = ex instanceof ArithmeticException ? "Amount would overflow an account balance." : ex.getMessage();
+                        out.write("{\"line\":" + lineNumber + ",\"posted\":false,\"error\":" + Json.quote(reason) + "}\n");
+                    } catch (JournalLogException ex) {
+                        // The log is unusable, so every later posting would fail the same way
+                        failure = ex.getCause().getMessage();
+                        out.write("{\"line\":" + lineNumber + ",\"posted\":false,\"error\":" + Json.quote("Journal log write failed: " + failure) + "}\n");
+                        rejected++;
+                        break;
+                    }
+                    if (lineNumber % FLUSH_LINES == 0 || !in.ready()) out.flush();
+                }
+
+                boolean durable = false;
+                JournalLog log = engine.log();
+                if (log != null && failure == null) {
+                    try {
+                        log.sync();
+                        durable = true;
+                    } catch (IOException ex) {
+                        failure = "Journal log write failed: " + ex.getMessage();
+                    }
+                }
+                out.write("{\"posted\":" + posted + ",\"rejected\":" + rejected + ",\"durable\":" + durable
+                        + (failure == null ? "" : ",\"error\":" + Json.quote(failure)) + "}\n");
+            }
+            if (posted > 0) compactIfNeeded();
+        }
+
+        // Tells a journal log failure apart from an error on the request's own stream
+        private static final class JournalLogException extends RuntimeException {
+            private static final long serialVersionUID = 1L;
+
+            JournalLogException(IOException cause) {
+                super(cause);
+            }
+        }
+
+        private void postEntry(Map<String, Object> entry) {
+            Date date = parseDate(string(entry, "date", true));
+            String description = string(entry, "description", false);
+            if (description == null) description = "";
+            try {
+                Object lines = entry.get("lines");
+                if (lines == null) {
+                    engine.post(date, description, string(entry, "debit", true), string(entry, "credit", true),
+                            amount(entry.get("amount"), "amount"));
+                    return;
+                }
+                if (!(lines instanceof List)) throw new IllegalArgumentException("\"lines\" must be an array");
+                List<LedgerEngine.EntryLine> entryLines = new ArrayList<>();
+                for (Object item : (List<?>) lines) {
+                    if (!(item instanceof Map)) throw new IllegalArgumentException("Each of \"lines\" must be an object");
+                    Map<?, ?> line = (Map<?, ?>) item;
+                    String account = string(line, "account", true);
+                    Object debit = line.get("debit"), credit = line.get("credit");
+                    if ((debit == null) == (credit == null)) {
+                        throw new IllegalArgumentException("Each of \"lines\" needs either \"debit\" or \"credit\"");
+                    }
+                    entryLines.add(debit != null
+                            ? LedgerEngine.EntryLine.debit(account, amount(debit, "debit"))
+                            : LedgerEngine.EntryLine.credit(account, amount(credit, "credit")));
+                }
+                engine.post(date, description, entryLines);
+            } catch (IOException ex) {
+                throw new JournalLogException(ex);
+            }
+        }
+
+        private void getAccounts(HttpExchange exchange, Map<String, String> query) throws IOException {
+            List<Account> chart = engine.chart();
+            try (Writer out = ndjson(exchange)) {
+                for (Account a : chart) {
+                    String number = a.getAccountNumber() == null ? "null" : Json.quote(a.getAccountNumber());
+                    out.write("{\"number\":" + number + ",\"name\":" + Json.quote(a.getName())
+                            + ",\"type\":" + Json.quote(a.getType()) + ",\"balance\":" + money(a.getBalance()) + "}\n");
+                }
+            }
+        }
+
+        private void getJournal(HttpExchange exchange, Map<String, String> query) throws IOException {
+            List<Transaction> entries = engine.transactions(optionalDate(query, "from"), optionalDate(query, "to"));
+            try (Writer out = ndjson(exchange)) {
+                EntryWriter writer = new EntryWriter(out);
+                for (Transaction tx : entries) writer.write(tx, null);
+            }
+        }
+
+        private void getLedger(HttpExchange exchange, Map<String, String> query) throws IOException {
+            String account = query.get("account");
+            if (account == null) throw new IllegalArgumentException("Missing query parameter \"account\"");
+            List<LedgerEngine.LedgerLine> lines = engine.ledger(account, optionalDate(query, "from"), optionalDate(query, "to"));
+            try (Writer out = ndjson(exchange)) {
+                EntryWriter writer = new EntryWriter(out);
+                for (LedgerEngine.LedgerLine line : lines) writer.write(line.tx, line.runningBalance);
+            }
+        }
+
+        private void getSearch(HttpExchange exchange, Map<String, String> query) throws IOException {
+            String q = query.get("q");
+            if (q == null) throw new IllegalArgumentException("Missing query parameter \"q\"");
+            List<Transaction> entries = engine.search(q);
+            try (Writer out = ndjson(exchange)) {
+                EntryWriter writer = new EntryWriter(out);
+                for (Transaction tx : entries) writer.write(tx, null);
+            }
+        }
+
+        // Asset and liability balances with the same totals as the Balance Sheet tab
+        private void getBalanceSheet(HttpExchange exchange, Map<String, String> query) throws IOException {
+            Date asOf = optionalDate(query, "asOf");
+            List<Account> chart = engine.chart();
+            long[] balances = new long[chart.size()];
+            if (asOf != null) {
+                balances = engine.balancesAt(asOf); // the server adds no accounts, so positions match
+            } else {
+                for (int i = 0; i < balances.length; i++) balances[i] = chart.get(i).getBalance();
+            }
+
+            long[] totals = new long[BalanceGroup.values().length];
+            StringBuilder assets = new StringBuilder(), liabilities = new StringBuilder();
+            for (int i = 0; i < Math.min(balances.length, chart.size()); i++) {
+                Account a = chart.get(i);
+                int g = a.getGroup().ordinal();
+                totals[g] = Money.add(totals[g], balances[i]);
+                StringBuilder side = a.getType().equals("Asset") ? assets : a.getType().equals("Liability") ? liabilities : null;
+                if (side == null) continue;
+                if (side.length() > 0) side.append(',');
+                side.append("{\"account\":").append(Json.quote(a.getName())).append(",\"balance\":").append(money(balances[i])).append('}');
+            }
+
+            String body = "{\"asOf\":" + (asOf == null ? "null" : Json.quote(query.get("asOf")))
+                    + ",\"assets\":[" + assets + "],\"liabilities\":[" + liabilities + "]"
+                    + ",\"ownersEquity\":" + money(calculateProprietorshipEquity(totals))
+                    + ",\"totalAssets\":" + money(calculateTotalAssets(totals))
+                    + ",\"totalLiabilitiesAndEquity\":" + money(calculateTotalLiabilitiesAndEquity(totals)) + "}\n";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        // Same policy as the app: fold the log into the book once it outgrows half the journal
+        private void compactIfNeeded() {
+            JournalLog log = engine.log();
+            if (book == null || log == null) return;
+            if (log.recordsInFile() < Math.max(COMPACT_MIN_RECORDS, engine.size() / 2)) return;
+            if (!compacting.compareAndSet(false, true)) return;
+            try {
+                LedgerEngine.Snapshot snapshot = engine.snapshot();
+                JournalFile.writeAtomically(book, snapshot.accounts, snapshot.journal);
+                log.compactBefore(snapshot.journal.size());
+            } catch (IOException ex) {
+                // The log still holds every posting, so nothing is lost; the next bulk post retries
+                System.err.println("Error compacting the journal log: " + ex.getMessage());
+            } finally {
+                compacting.set(false);
+            }
+        }
+
+        // --- Request and response helpers ---
+
+        // Starts a chunked NDJSON response; the caller writes lines and closes it
+        private static Writer ndjson(HttpExchange exchange) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", NDJSON);
+            exchange.sendResponseHeaders(200, 0);
+            return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER);
+        }
+
+        private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+            byte[] bytes = ("{\"error\":" + Json.quote(message) + "}\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+
+        private static Map<String, String> query(String rawQuery) throws UnsupportedEncodingException {
+            Map<String, String> out = new HashMap<>();
+            if (rawQuery == null) return out;
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) continue;
+                int eq = pair.indexOf('=');
+                String key = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                out.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+            return out;
+        }
+
+        private static Date optionalDate(Map<String, String> query, String name) {
+            String text = query.get(name);
+            return text == null || text.isEmpty() ? null : parseDate(text);
+        }
+
+        private static Date parseDate(String text) {
+            try {
+                return JournalFile.fromEpochDay(Math.toIntExact(LocalDate.parse(text).toEpochDay()));
+            } catch (DateTimeParseException | ArithmeticException ex) {
+                throw new IllegalArgumentException("Invalid date " + text + "; use yyyy-MM-dd");
+            }
+        }
+
+        private static String string(Map<?, ?> object, String name, boolean required) {
+            Object value = object.get(name);
+            if (value == null) {
+                if (required) throw new IllegalArgumentException("Missing \"" + name + "\"");
+                return null;
+            }
+            if (!(value instanceof String)) throw new IllegalArgumentException("\"" + name + "\" must be a string");
+            return (String) value;
+        }
+
+        private static long amount(Object value, String name) {
+            if (value == null) throw new IllegalArgumentException("Missing \"" + name + "\"");
+            if (!(value instanceof String) && !(value instanceof BigDecimal)) {
+                throw new IllegalArgumentException("\"" + name + "\" must be a number");
+            }
+            return Money.parse(value.toString());
+        }
+
+        private static String money(long cents) {
+            return Money.toBigDecimal(cents).toPlainString();
+        }
+
+        // Writes entries as NDJSON lines; runs of entries usually share a date, so its text is reused
+        private static final class EntryWriter {
+            private final Writer out;
+            private final StringBuilder line = new StringBuilder(256);
+            private Date lastDate;
+            private String lastDateText;
+
+            EntryWriter(Writer out) {
+                this.out = out;
+            }
+
+            /** balance, if not null, is the ledger's running balance after the entry. */
+            void write(Transaction tx, Long balance) throws IOException {
+                Date date = tx.getDate();
+                if (!date.equals(lastDate)) {
+                    lastDate = date;
+                    lastDateText = LocalDate.ofEpochDay(JournalFile.toEpochDay(date)).toString();
+                }
+                line.setLength(0);
+                line.append("{\"date\":\"").append(lastDateText).append("\",\"description\":").append(Json.quote(tx.getDescription()));
+                if (tx.isCompound()) {
+                    line.append(",\"lines\":[");
+                    for (int i = 0; i < tx.lineCount(); i++) {
+                        long amount = tx.lineAmount(i);
+                        if (i > 0) line.append(',');
+                        line.append("{\"account\":").append(Json.quote(tx.lineAccount(i)))
+                            .append(amount >= 0 ? ",\"debit\":" : ",\"credit\":").append(money(Math.abs(amount))).append('}');
+                    }
+                    line.append(']');
+                } else {
+                    line.append(",\"debit\":").append(Json.quote(tx.getDebitAccount()))
+                        .append(",\"credit\":").append(Json.quote(tx.getCreditAccount()));
+                }
+                line.append(",\"amount\":").append(money(tx.getAmount()));
+                if (balance != null) line.append(",\"balance\":").append(money(balance));
+                line.append("}\n");
+                out.append(line);
+            }
+        }
+    }
+
+    // --- Stress Check ---
+    // Drives every post path of the engine from several threads at once, then checks
+    // that the book still adds up:
+    //
+    //   java AccountingApp --stress [--threads n] [--entries n]
+    //
+    // Each thread sends --entries requests (default 20,000) on random accounts of the
+    // predefined chart and random dates, so stripes collide and entries are backdated.
+    // The requests are a mix of two-account posts, compound entries and posts through a
+    // shared PostingPipeline, with every 50th one invalid. While they run, a reader
+    // checks that total assets always equal liabilities plus equity. Afterwards:
+    //   - every accepted entry is in the journal exactly once and nothing else is;
+    //   - signed balances net to zero, and each equals what the threads posted to it;
+    //   - each ledger lists every entry touching the account once, and its movements
+    //     and last running balance equal the account's balance.
+    // Exits with status 1 if any check fails.
+    private static final class LedgerStress {
+        private static final int FIRST_DAY = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+        private static final int REJECT_EVERY = 50;
+        private static final int MAX_PROBLEMS = 20;
+
+        // What one thread had accepted, to check the book against afterwards
+        private static final class Tally {
+            final List<String> posted = new ArrayList<>();
+            final long[] moved; // debits less credits, in cents, by chart position
+            long rejected;
+            long expectedRejects;
+
+            Tally(int accounts) {
+                moved = new long[accounts];
+            }
+        }
+
+        private final LedgerEngine engine = new LedgerEngine();
+        private final List<Account> chart;
+        private final Queue<String> problems = new ConcurrentLinkedQueue<>();
+
+        private LedgerStress() {
+            addPredefinedAccounts(engine);
+            engine.rebuildPostings();
+            chart = engine.chart();
+        }
+
+        /** Runs the check from command-line arguments and prints the outcome; true if every check passed. */
+        static boolean run(String[] args) throws InterruptedException, ExecutionException {
+            int threads = Runtime.getRuntime().availableProcessors();
+            int entries = 20_000;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads")) {
+                    threads = Integer.parseInt(LedgerServer.optionValue(args, ++i));
+                } else if (args[i].equals("--entries")) {
+                    entries = Integer.parseInt(LedgerServer.optionValue(args, ++i));
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + args[i] + "; use [--threads n] [--entries n]");
+                }
+            }
+            return new LedgerStress().check(threads, entries);
+        }
+
+        private boolean check(int threads, int entries) throws InterruptedException, ExecutionException {
+            Tally piped = new Tally(chart.size()); // filled on the pipeline's writer thread
+            PostingPipeline pipeline = new PostingPipeline(engine, 1 << 12, (sequence, tx, reason) -> {
+                if (tx != null) piped.posted.add(tx.getDescription());
+                else piped.rejected++;
+            });
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+            AtomicBoolean posting = new AtomicBoolean(true);
+            Future<Long> reader = pool.submit(() -> {
+                long checks = 0, unbalanced = 0;
+                String first = null;
+                while (posting.get()) {
+                    long[] totals = engine.totals();
+                    if (calculateTotalAssets(totals) != calculateTotalLiabilitiesAndEquity(totals)) {
+                        if (unbalanced++ == 0) first = Arrays.toString(totals);
+                    }
+                    checks++;
+                    LockSupport.parkNanos(100_000L); // totals() holds the engine exclusively
+                }
+                if (unbalanced > 0) problem("Totals out of balance in " + unbalanced + " of " + checks + " reads while posting, first " + first);
+                return checks;
+            });
+            List<Future<Tally>> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                producers.add(pool.submit(() -> produce(thread, entries, pipeline)));
+            }
+
+            long start = System.nanoTime();
+            List<Tally> tallies = new ArrayList<>();
+            try {
+                for (Future<Tally> f : producers) tallies.add(f.get());
+                pipeline.close();
+            } finally {
+                posting.set(false);
+                pool.shutdownNow();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long totalsChecks = reader.get();
+            engine.flush();
+
+            tallies.add(piped);
+            Set<String> accepted = new HashSet<>();
+            long[] moved = new long[chart.size()];
+            long rejected = 0, expectedRejects = 0;
+            for (Tally tally : tallies) {
+                for (String description : tally.posted) {
+                    if (!accepted.add(description)) problem("Posted twice: " + description);
+                }
+                for (int i = 0; i < moved.length; i++) moved[i] = Money.add(moved[i], tally.moved[i]);
+                rejected += tally.rejected;
+                expectedRejects += tally.expectedRejects;
+            }
+            if (rejected != expectedRejects) problem("Rejected " + rejected + " requests, expected " + expectedRejects);
+
+            long ledgerRows = checkJournal(accepted);
+            checkBalances(moved, ledgerRows);
+
+            System.out.printf("%d threads posted %,d entries and rejected %,d in %.1f s (%,.0f requests/s); totals checked %,d times while posting%n",
+                    threads, accepted.size(), rejected, seconds, (accepted.size() + rejected) / seconds, totalsChecks);
+            if (problems.isEmpty()) {
+                System.out.println("OK: each entry is in the journal once, balances net to zero and every ledger adds up to its balance");
+                return true;
+            }
+            for (String p : problems) System.out.println("FAILED: " + p);
+            return false;
+        }
+
+        // One thread's requests; invalid ones must be refused without moving anything
+        private Tally produce(int thread, int entries, PostingPipeline pipeline) throws IOException {
+            Random random = new Random(thread);
+            Tally tally = new Tally(chart.size());
+            for (int k = 0; k < entries; k++) {
+                String description = "Stress " + thread + "-" + k;
+                Date date = JournalFile.fromEpochDay(FIRST_DAY + random.nextInt(365));
+                boolean invalid = k % REJECT_EVERY == REJECT_EVERY - 1;
+                if (invalid) tally.expectedRejects++;
+                int path = random.nextInt(10);
+                int credit = random.nextInt(chart.size());
+                String creditName = chart.get(credit).getName();
+
+                if (path < 4) {
+                    // Through the pipeline; its writer reports the outcome to the shared tally
+                    int debit = otherThan(random, credit);
+                    long amount = invalid ? 0L : 1 + random.nextInt(1_000_000);
+                    pipeline.publish(date, description, chart.get(debit).getName(), creditName, amount);
+                    move(tally, debit, credit, amount);
+                    continue;
+                }
+
+                try {
+                    if (path < 8) {
+                        int debit = otherThan(random, credit);
+                        long amount = invalid ? 0L : 1 + random.nextInt(1_000_000);
+                        engine.post(date, description, chart.get(debit).getName(), creditName, amount);
+                        move(tally, debit, credit, amount);
+                    } else {
+                        List<LedgerEngine.EntryLine> lines = new ArrayList<>();
+                        int[] debits = new int[1 + random.nextInt(5)];
+                        long[] amounts = new long[debits.length];
+                        long total = 0;
+                        for (int d = 0; d < debits.length; d++) {
+                            debits[d] = otherThan(random, credit);
+                            amounts[d] = 1 + random.nextInt(1_000_000);
+                            total += amounts[d];
+                            lines.add(LedgerEngine.EntryLine.debit(chart.get(debits[d]).getName(), amounts[d]));
+                        }
+                        lines.add(LedgerEngine.EntryLine.credit(invalid ? "No Such Account" : creditName, total));
+                        engine.post(date, description, lines);
+                        for (int d = 0; d < debits.length; d++) move(tally, debits[d], credit, amounts[d]);
+                    }
+                    tally.posted.add(description);
+                } catch (IllegalArgumentException ex) {
+                    tally.rejected++;
+                    if (!invalid) problem("Refused " + description + ": " + ex.getMessage());
+                }
+            }
+            return tally;
+        }
+
+        private int otherThan(Random random, int account) {
+            int other = random.nextInt(chart.size() - 1);
+            return other < account ? other : other + 1;
+        }
+
+        private static void move(Tally tally, int debit, int credit, long amount) {
+            tally.moved[debit] += amount;
+            tally.moved[credit] -= amount;
+        }
+
+        // Each accepted entry once, nothing else, in date order; returns the ledger rows the entries make
+        private long checkJournal(Set<String> accepted) {
+            List<Transaction> journal = engine.transactions(null, null);
+            if (engine.size() != accepted.size()) problem("Journal size " + engine.size() + ", accepted " + accepted.size());
+            Set<String> seen = new HashSet<>();
+            Set<String> accounts = new HashSet<>();
+            long ledgerRows = 0;
+            Date previous = null;
+            for (Transaction tx : journal) {
+                String description = tx.getDescription();
+                if (!seen.add(description)) problem("In the journal twice: " + description);
+                if (!accepted.contains(description)) problem("In the journal but never accepted: " + description);
+                if (previous != null && tx.getDate().before(previous)) problem("Journal out of date order at " + description);
+                previous = tx.getDate();
+                accounts.clear();
+                for (int j = 0; j < tx.lineCount(); j++) accounts.add(tx.lineAccount(j));
+                ledgerRows += accounts.size();
+            }
+            for (String description : accepted) {
+                if (!seen.contains(description)) problem("Accepted but missing from the journal: " + description);
+            }
+            return ledgerRows;
+        }
+
+        private void checkBalances(long[] moved, long ledgerRows) {
+            long net = 0;
+            long rows = 0;
+            for (int i = 0; i < chart.size(); i++) {
+                Account a = chart.get(i);
+                String name = a.getName();
+                long balance = engine.balance(name);
+                net = Money.add(net, a.debitSign() * balance);
+                if (balance != a.debitSign() * moved[i]) {
+                    problem(name + " balance " + balance + ", posted " + a.debitSign() * moved[i]);
+                }
+
+                List<LedgerEngine.LedgerLine> ledger = engine.ledger(name, null, null);
+                Set<Transaction> entries = Collections.newSetFromMap(new IdentityHashMap<>());
+                long movement = 0;
+                for (LedgerEngine.LedgerLine line : ledger) {
+                    if (!entries.add(line.tx)) problem(name + " ledger lists " + line.tx.getDescription() + " twice");
+                    for (int j = 0; j < line.tx.lineCount(); j++) {
+                        if (line.tx.lineAccount(j).equals(name)) movement = Money.add(movement, line.tx.lineAmount(j));
+                    }
+                }
+                rows += ledger.size();
+                if (a.debitSign() * movement != balance) {
+                    problem(name + " ledger adds up to " + a.debitSign() * movement + ", balance " + balance);
+                }
+                long last = ledger.isEmpty() ? 0L : ledger.get(ledger.size() - 1).runningBalance;
+                if (last != balance) problem(name + " ledger ends at " + last + ", balance " + balance);
+            }
+            if (net != 0) problem("Signed balances net to " + net + ", not zero");
+            if (rows != ledgerRows) problem("Ledgers hold " + rows + " rows, the journal's entries make " + ledgerRows);
+        }
+
+        private void problem(String message) {
+            if (problems.size() < MAX_PROBLEMS) problems.add(message);
+        }
+    }
+
+    // --- Minimal JSON ---
+    // Just enough JSON for the server's request lines: objects, arrays, strings,
+    // numbers, booleans and null. Numbers come back as BigDecimal so an amount is
+    // never rounded through a double. Errors are IllegalArgumentExceptions.
+    private static final class Json {
+        private final String text;
+        private int pos;
+
+        private Json(String text) {
+            this.text = text;
+        }
+
+        /** Parses text holding exactly one JSON object. */
+        static Map<String, Object> parseObject(String text) {
+            Json p = new Json(text);
+            p.skipSpace();
+            if (!p.at('{')) throw p.error("Expected a JSON object");
+            Map<String, Object> object = p.object();
+            p.skipSpace();
+            if (p.pos < text.length()) throw p.error("Unexpected text after the object");
+            return object;
+        }
+
+        /** s as a JSON string literal, quotes included. */
+        static String quote(String s) {
+            StringBuilder b = new StringBuilder(s.length() + 2).append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': b.append("\\\""); break;
+                    case '\\': b.append("\\\\"); break;
+                    case '\n': b.append("\\n"); break;
+                    case '\r': b.append("\\r"); break;
+                    case '\t': b.append("\\t"); break;
+                    default:
+                        if (c < 0x20) b.append(String.format("\\u%04x", (int) c));
+                        else b.append(c);
+                }
+            }
+            return b.append('"').toString();
+        }
+
+        private Object value() {
+            skipSpace();
+            if (pos >= text.length()) throw error("Unexpected end of line");
+            switch (text.charAt(pos)) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default: return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> object = new HashMap<>();
+            pos++;
+            skipSpace();
+            if (at('}')) {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipSpace();
+                if (!at('"')) throw error("Expected a field name");
+                String name = string();
+                skipSpace();
+                expect(':');
+                object.put(name, value());
+                skipSpace();
+                if (at('}')) {
+                    pos++;
+                    return object;
+                }
+                expect(',');
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> array = new ArrayList<>();
+            pos++;
+            skipSpace();
+            if (at(']')) {
+                pos++;
+                return array;
+            }
+            while (true) {
+                array.add(value());
+                skipSpace();
+                if (at(']')) {
+                    pos++;
+                    return array;
+                }
+                expect(',');
+            }
+        }
+
+        private String string() {
+            pos++; // opening quote
+            StringBuilder b = null;
+            int start = pos;
+            while (true) {
+                if (pos >= text.length()) throw error("Unterminated string");
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    String s = b == null ? text.substring(start, pos) : b.append(text, start, pos).toString();
+                    pos++;
+                    return s;
+                }
+                if (c != '\\') {
+                    pos++;
+                    continue;
+                }
+                if (b == null) b = new StringBuilder();
+                b.append(text, start, pos);
+                if (++pos >= text.length()) throw error("Unterminated string");
+                char escape = text.charAt(pos++);
+                switch (escape) {
+                    case '"': case '\\': case '/': b.append(escape); break;
+                    case 'b': b.append('\b'); break;
+                    case 'f': b.append('\f'); break;
+                    case 'n': b.append('\n'); break;
+                    case 'r': b.append('\r'); break;
+                    case 't': b.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw error("Bad \\u escape");
+                        b.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: throw error("Bad escape \\" + escape);
+                }
+                start = pos;
+            }
+        }
+
+        private BigDecimal number() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) pos++;
+            if (pos == start) throw error("Unexpected character '" + text.charAt(pos) + "'");
+            try {
+                return new BigDecimal(text.substring(start, pos));
+            } catch (NumberFormatException ex) {
+                throw error("Bad number " + text.substring(start, pos));
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!text.startsWith(word, pos)) throw error("Unexpected character '" + text.charAt(pos) + "'");
+            pos += word.length();
+            return value;
+        }
+
+        private boolean at(char c) {
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            if (!at(c)) throw error("Expected '" + c + "'");
+            pos++;
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at column " + (pos + 1) + ": " + message);
+        }
+    }
+
+
+    // --- Setup and Helper Methods ---
+
+    private JPanel createHeader() {
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBackground(PRIMARY_BLUE); 
+        header.setBorder(new EmptyBorder(10, 15, 10, 15));
+
+        // Left Panel (Title and Quote)
+        JPanel titlePanel = new JPanel(new GridLayout(2, 1));
+        titlePanel.setOpaque(false);
+        
+        JLabel companyName = new JLabel("Accounting System");
+        companyName.setForeground(Color.WHITE);
+        companyName.setFont(new Font("Segoe UI", Font.BOLD, 28));
+        
+        JLabel systemQuote = new JLabel("Transactions • Accounts • General Journal • General Ledger • Balance Sheet");
+        systemQuote.setForeground(SECONDARY_MINT);
+        systemQuote.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        
+        titlePanel.add(companyName);
+        titlePanel.add(systemQuote);
+
+        // Right Panel (Buttons)
+        JPanel menuPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        menuPanel.setOpaque(false);
+        
+        // --- NEW BUTTONS ---
+        JButton homeBtn = createStyledButton("Home");
+        JButton aboutBtn = createStyledButton("About");
+        // --- END NEW BUTTONS ---
+        
+        JButton openBtn = createStyledButton("Open File");
+        JButton archiveBtn = createStyledButton("Open Read-only");
+        JButton saveBtn = createStyledButton("Save");
+        
+        // --- ACTION LISTENERS FOR NEW BUTTONS ---
+        homeBtn.addActionListener(e -> mainTabbedPane.setSelectedIndex(0)); // Index 0 is "Add New Transaction"
+        aboutBtn.addActionListener(e -> createAboutDialog().setVisible(true));
+        // --- END ACTION LISTENERS ---
+
+        openBtn.addActionListener(e -> openFile());
+        archiveBtn.addActionListener(e -> openArchive());
+        saveBtn.addActionListener(e -> saveFile());
+
+        // Add new buttons to the menu panel
+        menuPanel.add(homeBtn);
+        menuPanel.add(aboutBtn);
+        menuPanel.add(openBtn);
+        menuPanel.add(archiveBtn);
+        menuPanel.add(saveBtn);
+
+        header.add(titlePanel, BorderLayout.WEST);
+        header.add(menuPanel, BorderLayout.EAST);
+
+        return header;
+    }
+    
+    /**
+     * Creates and returns the About dialog window.
+     */
+    private JDialog createAboutDialog() {
+        JDialog dialog = new JDialog(this, "About this Accounting System", true);
+        dialog.setLayout(new BorderLayout(15, 15));
+        dialog.setSize(450, 300);
+        dialog.setLocationRelativeTo(this);
+        dialog.setBackground(BACKGROUND_LIGHT);
+        dialog.setResizable(false);
+
+        JPanel content = new JPanel(new BorderLayout(10, 10));
+        content.setBorder(new EmptyBorder(20, 20, 20, 20));
+        content.setBackground(Color.WHITE);
+
+        JLabel title = new JLabel("Accounting System Overview", SwingConstants.CENTER);
+        title.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        title.setForeground(PRIMARY_BLUE.darker());
+
+        JTextArea info = new JTextArea();
+        info.setText(
+            "This application simulates a simple proprietorship accounting system based on the double-entry method.\n\n" +
+            "Key functionalities:\n" +
+            "1. **Add New Transaction (Home):** Records debits and credits that must always balance.\n" +
+            "2. **Chart of Accounts:** Displays all existing accounts and their running balances.\n" +
+            "3. **General Journal:** Shows the chronological list of all posted transactions.\n" +
+            "4. **General Ledger:** Allows viewing the detailed activity (T-account) and running balance for any selected account.\n" +
+            "5. **Balance Sheet:** Automatically generates the fundamental financial statement (Assets = Liabilities + Equity).\n\n" +
+            "Data can be saved and loaded using the 'Save' and 'Open File' buttons."+
+            "This system is designed for educational purposes to illustrate basic accounting principles."+
+            "It is not intended for actual financial reporting or compliance with accounting standards."+
+            "Always consult a professional accountant for real-world accounting needs."+
+            "\n\nDeveloped by Group 1(MCNF) for CC-ACCTNG21"+
+            "\nMembers: \n- Turceno, James Gabriel\n- Abad, Alexandra\n- Taburnal, Phoebe Fatima\n- Arong, Dara San\n- Cañoneo, Mark\n- Ranes, Andrea"+
+
+            "\n\n© 2024 Accounting System by MCNF. All rights reserved."
+        );
+        info.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        info.setWrapStyleWord(true);
+        info.setLineWrap(true);
+        info.setEditable(false);
+        info.setBackground(Color.WHITE);
+        info.setCaretPosition(0); // Scroll to top
+
+        content.add(title, BorderLayout.NORTH);
+        content.add(new JScrollPane(info), BorderLayout.CENTER);
+        
+        JButton closeBtn = createStyledButton("Close");
+        closeBtn.addActionListener(e -> dialog.dispose());
+        
+        JPanel southPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        southPanel.add(closeBtn);
+        southPanel.setBackground(Color.WHITE);
+
+        dialog.add(content, BorderLayout.CENTER);
+        dialog.add(southPanel, BorderLayout.SOUTH);
+        
+        return dialog;
+    }
+    
+    // Utility to create styled buttons
+    private JButton createStyledButton(String text) {
+        JButton btn = new JButton(text);
+        btn.setBackground(SECONDARY_MINT);
+        btn.setForeground(PRIMARY_BLUE);
+        btn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        btn.setFocusPainted(false);
+        btn.setBorder(BorderFactory.createEmptyBorder(8, 15, 8, 15));
+        btn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        return btn;
+    }
+
+    private void addPredefinedAccounts() {
+        addPredefinedAccounts(engine);
+    }
+
+    private static void addPredefinedAccounts(LedgerEngine engine) {
+        String[][] predefined = {
+            {"1001","Cash","Asset"},
+            {"1010","Accounts Receivable","Asset"},
+            {"1020","Prepaid Expenses","Asset"},
+            {"1030","Inventory","Asset"},
+            {"1040","Fixed Assets","Asset"},
+            {"1050","Accumulated Depreciation","Asset"},
+            {"1060","Other Assets","Asset"},
+            {"2001","Accounts Payable","Liability"},
+            {"2010","Accrued Liabilities","Liability"},
+            {"2020","Taxes Payable","Liability"},
+            {"2030","Payroll Payable","Liability"},
+            {"2040","Notes Payable","Liability"},
+            {"3001","Owner's Capital","Equity"}, 
+            {"3002","Owner's Drawing","Equity"}, 
+            {"4001","Revenue","Revenue"},
+            {"4010","Sales returns and allowances","Revenue"},
+            {"5001","Cost of Goods Sold","Expense"},
+            {"5010","Advertising Expense","Expense"},
+            {"5020","Bank Fees","Expense"},
+            {"5030","Depreciation Expense","Expense"},
+            {"5040","Payroll Tax Expense","Expense"},
+            {"5050","Rent Expense","Expense"},
+            {"5060","Supplies Expense","Expense"},
+            {"5070","Utilities Expense","Expense"},
+            {"5080","Wages Expense","Expense"},
+            {"6001","Other Expenses","Expense"}
+        };
+
+        for (String[] acc : predefined) {
+            engine.addAccount(new Account(acc[0], acc[1], acc[2], 0L));
+        }
+    }
+    
+    private String extractAccountName(String comboItem) {
+        return comboItem; 
+    }
+
+    private Account getAccountByName(String name) {
+        return engine.account(name);
+    }
+
+    // --- Data Persistence Methods (New) ---
+
+    // Data structure to hold data for serialization
+    private static class AccountingData implements Serializable {
+        private static final long serialVersionUID = 2L;
+        List<Account> accounts;
+        List<Transaction> transactions;
+
+        public AccountingData(List<Account> accounts, List<Transaction> transactions) {
+            this.accounts = accounts;
+            this.transactions = transactions;
+        }
+    }
+
+    // --- Binary Journal File (.acct) ---
+    // Versioned columnar layout, read and written through a FileChannel:
+    //
+    //   header   magic, version, counts, first epoch day, column widths, section offsets
+    //   accounts number, name, type, balance in cents; an account's id is its position
+    //   pool     distinct descriptions: int offsets then UTF-8 bytes
+    //   columns  day[n], debitId[n], creditId[n], descriptionId[n], amount[n]
+    //   splits   version 2: entry[s], lineStart[s + 1], lineAccountId[L], lineAmount[L]
+    //
+    // Each column is fixed width for the whole file but only as wide as its values
+    // need (days are stored from the first day), so any entry can be found by offset.
+    // A compound entry keeps its row in the columns: debitId holds the account count,
+    // which no account has, creditId its index into splits and amount its debit total.
+    // Its lines are signed, debits positive. A book without one is written as version 1.
+    private static final class JournalFile {
+        static final int MAGIC = 0x41434354; // "ACCT"
+        static final int VERSION = 2;
+        static final int HEADER_SIZE = 56;
+        static final int LEGACY_MAGIC = 0xACED0005; // ObjectOutputStream header of old .dat files
+
+        // Parsed header; also used by readers that map the file instead of loading it
+        static final class Header {
+            int accountCount, transactionCount, poolCount, firstDay;
+            int dayWidth, idWidth, descriptionWidth, amountWidth;
+            long accountsOffset, poolOffset, columnsOffset;
+            int splitCount, lineCount; // compound entries and their lines, version 2
+
+            long dayColumn() { return columnsOffset; }
+            long debitColumn() { return dayColumn() + (long) dayWidth * transactionCount; }
+            long creditColumn() { return debitColumn() + (long) idWidth * transactionCount; }
+            long descriptionColumn() { return creditColumn() + (long) idWidth * transactionCount; }
+            long amountColumn() { return descriptionColumn() + (long) descriptionWidth * transactionCount; }
+
+            // The splits start at the next 8-byte boundary after the amounts
+            long splitEntryColumn() { return (amountColumn() + (long) amountWidth * transactionCount + 7) & ~7L; }
+            long lineStartColumn() { return splitEntryColumn() + 4L * splitCount; }
+            long lineAccountColumn() { return lineStartColumn() + 4L * (splitCount + 1); }
+            long lineAmountColumn() { return lineAccountColumn() + (long) idWidth * lineCount; }
+
+            /** What the debit column holds for a compound entry. */
+            int splitMarker() { return accountCount; }
+        }
+
+        private JournalFile() {}
+
+        static boolean isLegacyFile(File file) throws IOException {
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer b = ByteBuffer.allocate(4);
+                while (b.hasRemaining()) {
+                    if (ch.read(b) < 0) return false;
+                }
+                return b.getInt(0) == LEGACY_MAGIC;
+            }
+        }
+
+        static void write(File file, AccountRegistry accounts, Journal journal) throws IOException {
+            int n = journal.size();
+            int[] day = new int[n], debit = new int[n], credit = new int[n], desc = new int[n];
+            long[] amount = new long[n];
+            Map<String, Integer> poolIds = new HashMap<>();
+            List<String> pool = new ArrayList<>();
+            int splits = 0, lineTotal = 0;
+            int[] splitEntry = new int[16], lineStart = new int[17], lineIds = new int[64];
+            long[] lineAmounts = new long[64];
+
+            int i = 0;
+            long lastMillis = Long.MIN_VALUE;
+            int lastDay = 0;
+            for (Transaction tx : journal) {
+                // The journal is date-ordered, so consecutive entries mostly share a date
+                if (tx.getDate().getTime() != lastMillis) {
+                    lastMillis = tx.getDate().getTime();
+                    lastDay = toEpochDay(tx.getDate());
+                }
+                day[i] = lastDay;
+                if (tx.isCompound()) {
+                    if (splits + 1 == splitEntry.length) {
+                        splitEntry = Arrays.copyOf(splitEntry, splitEntry.length * 2);
+                        lineStart = Arrays.copyOf(lineStart, lineStart.length * 2);
+                    }
+                    int lines = tx.lineCount();
+                    if (lineTotal + lines > lineIds.length) {
+                        lineIds = Arrays.copyOf(lineIds, Math.max(lineIds.length * 2, lineTotal + lines));
+                        lineAmounts = Arrays.copyOf(lineAmounts, lineIds.length);
+                    }
+                    for (int line = 0; line < lines; line++) {
+                        lineIds[lineTotal] = accountId(accounts, tx.lineAccount(line));
+                        lineAmounts[lineTotal++] = tx.lineAmount(line);
+                    }
+                    debit[i] = accounts.size();
+                    credit[i] = splits;
+                    splitEntry[splits++] = i;
+                    lineStart[splits] = lineTotal;
+                } else {
+                    debit[i] = accountId(accounts, tx.getDebitAccount());
+                    credit[i] = accountId(accounts, tx.getCreditAccount());
+                }
+                Integer id = poolIds.get(tx.getDescription());
+                if (id == null) {
+                    id = pool.size();
+                    poolIds.put(tx.getDescription(), id);
+                    pool.add(tx.getDescription());
+                }
+                desc[i] = id;
+                amount[i] = tx.getAmount();
+                i++;
+            }
+
+            Header h = new Header();
+            h.accountCount = accounts.size();
+            h.transactionCount = n;
+            h.poolCount = pool.size();
+            int lastDayInBook = n == 0 ? 0 : day[n - 1];
+            h.firstDay = n == 0 ? 0 : day[0];
+            h.splitCount = splits;
+            h.lineCount = lineTotal;
+            h.dayWidth = widthFor(Math.subtractExact(lastDayInBook, h.firstDay) + 1L);
+            h.idWidth = splits == 0 ? widthFor(accounts.size()) : widthFor(Math.max(accounts.size() + 1L, splits));
+            h.descriptionWidth = widthFor(pool.size());
+            h.amountWidth = 4;
+            for (long v : amount) {
+                if (v != (int) v) { h.amountWidth = 8; break; }
+            }
+            for (int k = 0; k < lineTotal && h.amountWidth == 4; k++) {
+                if (lineAmounts[k] != (int) lineAmounts[k]) h.amountWidth = 8;
+            }
+            for (int k = 0; k < n; k++) day[k] -= h.firstDay;
+
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChannelWriter out = new ChannelWriter(ch, HEADER_SIZE);
+
+                h.accountsOffset = out.position();
+                for (Account a : accounts) {
+                    out.putString(a.getAccountNumber());
+                    out.putString(a.getName());
+                    out.putString(a.getType());
+                    out.putLong(a.getBalance());
+                }
+
+                h.poolOffset = out.position();
+                byte[][] encoded = new byte[pool.size()][];
+                int[] offsets = new int[pool.size() + 1];
+                for (int p = 0; p < encoded.length; p++) {
+                    encoded[p] = pool.get(p).getBytes(StandardCharsets.UTF_8);
+                    offsets[p + 1] = Math.addExact(offsets[p], encoded[p].length);
+                }
+                out.putInts(offsets, offsets.length, 4);
+                for (byte[] b : encoded) out.putBytes(b);
+
+                out.alignTo(8);
+                h.columnsOffset = out.position();
+                out.putInts(day, n, h.dayWidth);
+                out.putInts(debit, n, h.idWidth);
+                out.putInts(credit, n, h.idWidth);
+                out.putInts(desc, n, h.descriptionWidth);
+                out.putLongs(amount, n, h.amountWidth);
+                if (splits > 0) {
+                    out.alignTo(8);
+                    out.putInts(splitEntry, splits, 4);
+                    out.putInts(lineStart, splits + 1, 4);
+                    out.putInts(lineIds, lineTotal, h.idWidth);
+                    out.putLongs(lineAmounts, lineTotal, h.amountWidth);
+                }
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(splits == 0 ? 1 : VERSION)
+                      .putInt(h.accountCount).putInt(h.transactionCount).putInt(h.poolCount).putInt(h.firstDay)
+                      .put((byte) h.dayWidth).put((byte) h.idWidth).put((byte) h.descriptionWidth).put((byte) h.amountWidth)
+                      .putLong(h.accountsOffset).putLong(h.poolOffset).putLong(h.columnsOffset).putInt(h.splitCount);
+                header.flip();
+                while (header.hasRemaining()) ch.write(header, header.position());
+                ch.force(true);
+            }
+        }
+
+        // Writes next to the target and renames over it, so a crash leaves the old snapshot intact
+        static void writeAtomically(File file, AccountRegistry accounts, Journal journal) throws IOException {
+            File tmp = new File(file.getPath() + ".tmp");
+            write(tmp, accounts, journal);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        static Header readHeader(FileChannel ch) throws IOException {
+            ChannelReader in = new ChannelReader(ch, 0);
+            if (in.getInt() != MAGIC) throw new IOException("Not an accounting journal file");
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported journal file version " + version);
+            Header h = new Header();
+            h.accountCount = in.getInt();
+            h.transactionCount = in.getInt();
+            h.poolCount = in.getInt();
+            h.firstDay = in.getInt();
+            int widths = in.getInt();
+            h.dayWidth = widths >>> 24;
+            h.idWidth = (widths >>> 16) & 0xFF;
+            h.descriptionWidth = (widths >>> 8) & 0xFF;
+            h.amountWidth = widths & 0xFF;
+            h.accountsOffset = in.getLong();
+            h.poolOffset = in.getLong();
+            h.columnsOffset = in.getLong();
+            if (h.accountCount < 0 || h.transactionCount < 0 || h.poolCount < 0) throw new IOException("Corrupt journal file header");
+            if (version >= 2) {
+                h.splitCount = in.getInt();
+                if (h.splitCount < 0) throw new IOException("Corrupt journal file header");
+                if (h.splitCount > 0) {
+                    in.seek(h.lineStartColumn() + 4L * h.splitCount);
+                    h.lineCount = in.getInt();
+                    if (h.lineCount < 0) throw new IOException("Corrupt journal file header");
+                }
+            }
+            return h;
+        }
+
+        static List<Account> readAccounts(FileChannel ch, Header h) throws IOException {
+            ChannelReader in = new ChannelReader(ch, h.accountsOffset);
+            List<Account> accounts = new ArrayList<>(h.accountCount);
+            for (int a = 0; a < h.accountCount; a++) {
+                accounts.add(new Account(in.getString(), in.getString(), in.getString(), in.getLong()));
+            }
+            return accounts;
+        }
+
+        // Receives a file's contents as they are read, so a caller can show entries before the end
+        interface ReadListener {
+            void accountsRead(List<Account> accounts) throws IOException;
+            void chunkRead(List<Transaction> chunk, int entriesRead, int total) throws IOException;
+        }
+
+        static final int READ_CHUNK = 1 << 16;
+
+        static AccountingData read(File file) throws IOException {
+            return read(file, null);
+        }
+
+        /** Reads file READ_CHUNK entries at a time, reporting each chunk to listener if given. */
+        static AccountingData read(File file, ReadListener listener) throws IOException {
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                Header h = readHeader(ch);
+                int n = h.transactionCount;
+                List<Account> accounts = readAccounts(ch, h);
+                if (listener != null) listener.accountsRead(accounts);
+
+                ChannelReader in = new ChannelReader(ch, h.poolOffset);
+                int[] offsets = new int[h.poolCount + 1];
+                in.getInts(offsets, 4);
+                byte[] bytes = in.getBytes(offsets[h.poolCount]);
+                String[] pool = new String[h.poolCount];
+                for (int p = 0; p < pool.length; p++) {
+                    pool[p] = new String(bytes, offsets[p], offsets[p + 1] - offsets[p], StandardCharsets.UTF_8);
+                }
+
+                int[] lineStart = new int[h.splitCount + 1], lineIds = new int[h.lineCount];
+                long[] lineAmounts = new long[h.lineCount];
+                if (h.splitCount > 0) {
+                    in.seek(h.lineStartColumn());
+                    in.getInts(lineStart, 4);
+                    in.getInts(lineIds, h.idWidth);
+                    in.getLongs(lineAmounts, h.amountWidth);
+                }
+
+                int chunk = Math.min(n, READ_CHUNK);
+                int[] day = new int[chunk], debit = new int[chunk], credit = new int[chunk], desc = new int[chunk];
+                long[] amount = new long[chunk];
+
+                // Entries on the same day share one Date; nothing ever mutates them
+                List<Transaction> transactions = new ArrayList<>(n);
+                Date date = null;
+                int dateDay = -1;
+                for (int from = 0; from < n; from += chunk) {
+                    int count = Math.min(chunk, n - from);
+                    in.seek(h.dayColumn() + (long) h.dayWidth * from);
+                    in.getInts(day, 0, count, h.dayWidth);
+                    in.seek(h.debitColumn() + (long) h.idWidth * from);
+                    in.getInts(debit, 0, count, h.idWidth);
+                    in.seek(h.creditColumn() + (long) h.idWidth * from);
+                    in.getInts(credit, 0, count, h.idWidth);
+                    in.seek(h.descriptionColumn() + (long) h.descriptionWidth * from);
+                    in.getInts(desc, 0, count, h.descriptionWidth);
+                    in.seek(h.amountColumn() + (long) h.amountWidth * from);
+                    in.getLongs(amount, 0, count, h.amountWidth);
+
+                    for (int i = 0; i < count; i++) {
+                        if (date == null || day[i] != dateDay) {
+                            dateDay = day[i];
+                            date = fromEpochDay(h.firstDay + dateDay);
+                        }
+                        if (debit[i] == h.splitMarker()) {
+                            int first = lineStart[credit[i]], end = lineStart[credit[i] + 1];
+                            String[] names = new String[end - first];
+                            for (int k = first; k < end; k++) names[k - first] = accounts.get(lineIds[k]).getName();
+                            transactions.add(new Transaction(date, pool[desc[i]], names, Arrays.copyOfRange(lineAmounts, first, end)));
+                        } else {
+                            transactions.add(new Transaction(date, pool[desc[i]],
+                                    accounts.get(debit[i]).getName(), accounts.get(credit[i]).getName(), amount[i]));
+                        }
+                    }
+                    if (listener != null) listener.chunkRead(transactions.subList(from, from + count), from + count, n);
+                }
+                return new AccountingData(accounts, transactions);
+            } catch (IndexOutOfBoundsException | NegativeArraySizeException ex) {
+                throw new IOException("Corrupt journal file", ex);
+            }
+        }
+
+        // Bytes needed for unsigned values below limit
+        private static int widthFor(long limit) {
+            if (limit <= 0x100) return 1;
+            if (limit <= 0x10000) return 2;
+            return 4;
+        }
+
+        private static int accountId(AccountRegistry accounts, String name) throws IOException {
+            Account a = accounts.byName(name);
+            if (a == null) throw new IOException("Transaction refers to unknown account: " + name);
+            return accounts.indexOf(a);
+        }
+
+        static int toEpochDay(Date date) {
+            return Math.toIntExact(date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay());
+        }
+
+        static Date fromEpochDay(int epochDay) {
+            return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    // Large-buffer sequential writer over a FileChannel
+    private static final class ChannelWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+        private long position;
+
+        ChannelWriter(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            this.position = position;
+            channel.position(position);
+        }
+
+        long position() { return position; }
+
+        void putInt(int v) throws IOException { room(4); buf.putInt(v); position += 4; }
+        void putLong(long v) throws IOException { room(8); buf.putLong(v); position += 8; }
+
+        void putBytes(byte[] b) throws IOException {
+            int off = 0;
+            while (off < b.length) {
+                room(1);
+                int k = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, k);
+                off += k;
+            }
+            position += b.length;
+        }
+
+        /** Null is written as length -1. */
+        void putString(String s) throws IOException {
+            if (s == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            putInt(b.length);
+            putBytes(b);
+        }
+
+        /** Writes count values using width bytes each (1, 2 or 4); narrow widths are unsigned. */
+        void putInts(int[] v, int count, int width) throws IOException {
+            if (width == 4) {
+                int off = 0;
+                while (off < count) {
+                    room(4);
+                    int k = Math.min(buf.remaining() / 4, count - off);
+                    buf.asIntBuffer().put(v, off, k);
+                    buf.position(buf.position() + k * 4);
+                    off += k;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    room(width);
+                    if (width == 1) buf.put((byte) v[i]); else buf.putShort((short) v[i]);
+                }
+            }
+            position += (long) width * count;
+        }
+
+        /** Writes count values using width bytes each (4 or 8). */
+        void putLongs(long[] v, int count, int width) throws IOException {
+            if (width == 8) {
+                int off = 0;
+                while (off < count) {
+                    room(8);
+                    int k = Math.min(buf.remaining() / 8, count - off);
+                    buf.asLongBuffer().put(v, off, k);
+                    buf.position(buf.position() + k * 8);
+                    off += k;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    room(4);
+                    buf.putInt((int) v[i]);
+                }
+            }
+            position += (long) width * count;
+        }
+
+        void alignTo(int alignment) throws IOException {
+            while (position % alignment != 0) {
+                room(1);
+                buf.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+
+        private void room(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+        }
+    }
+
+    // Large-buffer sequential reader over a FileChannel
+    private static final class ChannelReader {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+
+        ChannelReader(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            seek(position);
+        }
+
+        void seek(long position) throws IOException {
+            channel.position(position);
+            buf.clear().limit(0);
+        }
+
+        int getInt() throws IOException { require(4); return buf.getInt(); }
+        long getLong() throws IOException { require(8); return buf.getLong(); }
+
+        byte[] getBytes(int length) throws IOException {
+            byte[] b = new byte[length];
+            int off = 0;
+            while (off < length) {
+                require(1);
+                int k = Math.min(buf.remaining(), length - off);
+                buf.get(b, off, k);
+                off += k;
+            }
+            return b;
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            return length < 0 ? null : new String(getBytes(length), StandardCharsets.UTF_8);
+        }
+
+        /** Fills dst with values of width bytes each (1, 2 or 4); narrow widths are unsigned. */
+        void getInts(int[] dst, int width) throws IOException {
+            getInts(dst, 0, dst.length, width);
+        }
+
+        void getInts(int[] dst, int from, int count, int width) throws IOException {
+            if (width == 4) {
+                int off = from, end = from + count;
+                while (off < end) {
+                    require(4);
+                    int k = Math.min(buf.remaining() / 4, end - off);
+                    buf.asIntBuffer().get(dst, off, k);
+                    buf.position(buf.position() + k * 4);
+                    off += k;
+                }
+            } else {
+                for (int i = from; i < from + count; i++) {
+                    require(width);
+                    dst[i] = width == 1 ? buf.get() & 0xFF : buf.getShort() & 0xFFFF;
+                }
+            }
+        }
+
+        /** Fills dst with values of width bytes each (4 or 8). */
+        void getLongs(long[] dst, int width) throws IOException {
+            getLongs(dst, 0, dst.length, width);
+        }
+
+        void getLongs(long[] dst, int from, int count, int width) throws IOException {
+            if (width == 8) {
+                int off = from, end = from + count;
+                while (off < end) {
+                    require(8);
+                    int k = Math.min(buf.remaining() / 8, end - off);
+                    buf.asLongBuffer().get(dst, off, k);
+                    buf.position(buf.position() + k * 8);
+                    off += k;
+                }
+            } else {
+                for (int i = from; i < from + count; i++) {
+                    require(4);
+                    dst[i] = buf.getInt();
+                }
+            }
+        }
+
+        private void require(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            buf.compact();
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) throw new EOFException("Journal file is truncated");
+            }
+            buf.flip();
+        }
+    }
+
+    // --- Memory-mapped Archive (read-only) ---
+    // Serves a .acct file's columns straight from the page cache: nothing is
+    // decoded until a view asks for a cell, so opening costs the header, the
+    // accounts and a few mappings regardless of how many entries the file holds.
+    private static final class MappedJournal implements JournalSource {
+        private final JournalFile.Header h;
+        private final List<Account> accounts;
+        private final String[] accountNames;
+        private final ByteBuffer day, debit, credit, desc, amount, poolOffsets, poolBytes;
+        private final ByteBuffer splitEntry, lineStart, lineAccount, lineAmount; // empty without compound entries
+        private final Cursor cursor = new Cursor();
+        private MappedLedger ledger; // the selected account's postings only
+        private static final int SEARCH_BLOCK = 1 << 16;
+
+        private MappedJournal(JournalFile.Header h, List<Account> accounts, FileChannel ch) throws IOException {
+            this.h = h;
+            this.accounts = accounts;
+            accountNames = new String[accounts.size()];
+            for (int a = 0; a < accountNames.length; a++) accountNames[a] = accounts.get(a).getName();
+
+            int n = h.transactionCount;
+            day = map(ch, h.dayColumn(), (long) h.dayWidth * n);
+            debit = map(ch, h.debitColumn(), (long) h.idWidth * n);
+            credit = map(ch, h.creditColumn(), (long) h.idWidth * n);
+            desc = map(ch, h.descriptionColumn(), (long) h.descriptionWidth * n);
+            amount = map(ch, h.amountColumn(), (long) h.amountWidth * n);
+            poolOffsets = map(ch, h.poolOffset, 4L * (h.poolCount + 1));
+            poolBytes = map(ch, h.poolOffset + 4L * (h.poolCount + 1), poolOffsets.getInt(4 * h.poolCount));
+            if (h.splitCount > 0) {
+                splitEntry = map(ch, h.splitEntryColumn(), 4L * h.splitCount);
+                lineStart = map(ch, h.lineStartColumn(), 4L * (h.splitCount + 1));
+                lineAccount = map(ch, h.lineAccountColumn(), (long) h.idWidth * h.lineCount);
+                lineAmount = map(ch, h.lineAmountColumn(), (long) h.amountWidth * h.lineCount);
+            } else {
+                splitEntry = lineStart = lineAccount = lineAmount = ByteBuffer.allocate(0);
+            }
+        }
+
+        /** Maps file; the channel is only needed while mapping. */
+        static MappedJournal open(File file) throws IOException {
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                JournalFile.Header h = JournalFile.readHeader(ch);
+                return new MappedJournal(h, JournalFile.readAccounts(ch, h), ch);
+            } catch (IndexOutOfBoundsException ex) {
+                throw new IOException("Corrupt journal file", ex);
+            }
+        }
+
+        private static ByteBuffer map(FileChannel ch, long offset, long length) throws IOException {
+            if (length > Integer.MAX_VALUE) throw new IOException("Journal column too large to map");
+            if (offset + length > ch.size()) throw new IOException("Journal file is truncated");
+            return ch.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+
+        List<Account> accounts() { return accounts; }
+
+        @Override public int size() { return h.transactionCount; }
+
+        /** Returns a shared flyweight; it is only valid until the next call. */
+        @Override
+        public JournalEntry entry(int index) {
+            if (index < 0 || index >= h.transactionCount) throw new IndexOutOfBoundsException("Index: " + index);
+            cursor.index = index;
+            return cursor;
+        }
+
+        int dayOf(int i) { return h.firstDay + get(day, i, h.dayWidth); }
+        int debitOf(int i) { return get(debit, i, h.idWidth); }
+        int creditOf(int i) { return get(credit, i, h.idWidth); }
+        long amountOf(int i) { return h.amountWidth == 8 ? amount.getLong(8 * i) : amount.getInt(4 * i); }
+
+        // A compound entry's lines are lineStartOf(split) up to lineStartOf(split + 1)
+        boolean isSplit(int i) { return debitOf(i) == h.splitMarker(); }
+        int lineStartOf(int split) { return lineStart.getInt(4 * split); }
+        int lineAccountOf(int line) { return get(lineAccount, line, h.idWidth); }
+        long lineAmountOf(int line) { return h.amountWidth == 8 ? lineAmount.getLong(8 * line) : lineAmount.getInt(4 * line); }
+
+        // True if entry i has a line on account id
+        private boolean touches(int i, int id) {
+            int d = debitOf(i);
+            if (d != h.splitMarker()) return d == id || creditOf(i) == id;
+            int split = creditOf(i);
+            for (int line = lineStartOf(split), end = lineStartOf(split + 1); line < end; line++) {
+                if (lineAccountOf(line) == id) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int lineCount() {
+            int n = h.transactionCount;
+            return h.splitCount == 0 ? 2 * n : 2 * (n - h.splitCount) + lineStartOf(h.splitCount);
+        }
+
+        // Two lines per simple entry, plus what the compound entries before it add
+        @Override
+        public int firstLine(int index) {
+            int lo = 0, hi = h.splitCount; // compound entries before index
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (splitEntry.getInt(4 * mid) < index) lo = mid + 1; else hi = mid;
+            }
+            return 2 * (index - lo) + (lo == 0 ? 0 : lineStartOf(lo));
+        }
+
+        @Override
+        public int entryOfLine(int row) {
+            if (row < 0 || row >= lineCount()) throw new IndexOutOfBoundsException("Line: " + row);
+            if (h.splitCount == 0) return row / 2;
+            int lo = 0, hi = h.transactionCount - 1; // last entry starting at or before row
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (firstLine(mid) <= row) lo = mid; else hi = mid - 1;
+            }
+            return lo;
+        }
+
+        String description(int poolId) {
+            int from = poolOffsets.getInt(4 * poolId), to = poolOffsets.getInt(4 * poolId + 4);
+            byte[] b = new byte[to - from];
+            ByteBuffer slice = poolBytes.duplicate();
+            slice.position(from);
+            slice.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        // Narrow columns hold unsigned values
+        private static int get(ByteBuffer column, int i, int width) {
+            switch (width) {
+                case 1: return column.get(i) & 0xFF;
+                case 2: return column.getShort(2 * i) & 0xFFFF;
+                default: return column.getInt(4 * i);
+            }
+        }
+
+        /**
+         * Indices of entries matching query, newest first. Each distinct date,
+         * description and account is tested once; the scan then only reads ids,
+         * split into blocks that run in parallel. Safe off the EDT.
+         */
+        int[] search(String query, BooleanSupplier cancelled) {
+            int n = h.transactionCount;
+            int lastDay = n == 0 ? h.firstDay : dayOf(n - 1);
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+            boolean[] dayHit = new boolean[lastDay - h.firstDay + 1];
+            for (int d = 0; d < dayHit.length; d++) {
+                dayHit[d] = dateFormat.format(JournalFile.fromEpochDay(h.firstDay + d)).contains(query);
+            }
+            boolean[] descHit = new boolean[h.poolCount];
+            IntStream.range(0, descHit.length).parallel().forEach(p -> descHit[p] = description(p).toLowerCase().contains(query));
+            boolean[] accountHit = new boolean[accountNames.length + 1]; // the last is the split marker
+            for (int a = 0; a < accountNames.length; a++) accountHit[a] = accountNames[a].toLowerCase().contains(query);
+            if (cancelled.getAsBoolean()) throw new CancellationException();
+
+            int blocks = (n + SEARCH_BLOCK - 1) / SEARCH_BLOCK;
+            int[][] found = IntStream.range(0, blocks).parallel().mapToObj(b -> {
+                if (cancelled.getAsBoolean()) throw new CancellationException();
+                int from = b * SEARCH_BLOCK, to = Math.min(n, from + SEARCH_BLOCK);
+                int[] hits = new int[to - from];
+                int count = 0;
+                for (int i = to - 1; i >= from; i--) {
+                    if (dayHit[get(day, i, h.dayWidth)] || descHit[get(desc, i, h.descriptionWidth)]
+                            || hitsAccount(accountHit, i)) {
+                        hits[count++] = i;
+                    }
+                }
+                return Arrays.copyOf(hits, count);
+            }).toArray(int[][]::new);
+
+            int total = 0;
+            for (int[] f : found) total += f.length;
+            int[] out = new int[total];
+            int pos = 0;
+            for (int b = blocks - 1; b >= 0; b--) {
+                System.arraycopy(found[b], 0, out, pos, found[b].length);
+                pos += found[b].length;
+            }
+            return out;
+        }
+
+        private boolean hitsAccount(boolean[] accountHit, int i) {
+            int d = debitOf(i);
+            if (d != h.splitMarker()) return accountHit[d] || accountHit[creditOf(i)];
+            int split = creditOf(i);
+            for (int line = lineStartOf(split), end = lineStartOf(split + 1); line < end; line++) {
+                if (accountHit[lineAccountOf(line)]) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Every account's balance at the end of epochDay, by backing the later
+         * entries out of the final balances; reads only the entries after it.
+         */
+        long[] balancesAt(int epochDay) {
+            int n = h.transactionCount;
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (dayOf(mid) > epochDay) hi = mid; else lo = mid + 1;
+            }
+            long[] balances = new long[accounts.size()];
+            for (int a = 0; a < balances.length; a++) balances[a] = accounts.get(a).getBalance();
+            for (int i = lo; i < n; i++) {
+                int d = debitOf(i), c = creditOf(i);
+                if (d == h.splitMarker()) {
+                    for (int line = lineStartOf(c), end = lineStartOf(c + 1); line < end; line++) {
+                        int a = lineAccountOf(line);
+                        balances[a] = Money.subtract(balances[a], accounts.get(a).debitSign() * lineAmountOf(line));
+                    }
+                    continue;
+                }
+                long amt = amountOf(i);
+                balances[d] = Money.subtract(balances[d], accounts.get(d).debitSign() * amt);
+                balances[c] = Money.add(balances[c], accounts.get(c).debitSign() * amt);
+            }
+            return balances;
+        }
+
+        /** Scans the id columns for account; the result is kept until another account is asked for. */
+        LedgerSource postings(Account account) {
+            if (ledger == null || ledger.account != account) ledger = new MappedLedger(account);
+            return ledger;
+        }
+
+        // An account's rows are found by scanning forward from the nearest checkpoint,
+        // so the ledger holds a few checkpoints rather than one slot per posting.
+        // A checkpoint is taken every CHECKPOINT_ROWS postings and whenever the last
+        // one is more than CHECKPOINT_GAP entries back, which bounds any scan.
+        private final class MappedLedger implements LedgerSource {
+            private static final int CHECKPOINT_ROWS = 256;
+            private static final int CHECKPOINT_GAP = 4096;
+
+            final Account account;
+            private final int id;
+            private int size;
+            private int[] checkRow = new int[16], checkEntry = new int[16];
+            private long[] checkBalance = new long[16]; // running balance after the checkpoint row
+            private int checkpoints;
+            private int row = -1, rowEntry; // last row resolved, for sequential rendering
+            private long rowBalance;
+
+            MappedLedger(Account account) {
+                this.account = account;
+                id = accounts.indexOf(account);
+                long balance = 0L;
+                int lastCheck = Integer.MIN_VALUE / 2;
+                for (int i = 0; i < h.transactionCount; i++) {
+                    if (!touches(i, id)) continue;
+                    balance = Money.add(balance, effect(i));
+                    if (size % CHECKPOINT_ROWS == 0 || i - lastCheck > CHECKPOINT_GAP) {
+                        if (checkpoints == checkRow.length) {
+                            checkRow = Arrays.copyOf(checkRow, checkpoints * 2);
+                            checkEntry = Arrays.copyOf(checkEntry, checkpoints * 2);
+                            checkBalance = Arrays.copyOf(checkBalance, checkpoints * 2);
+                        }
+                        checkRow[checkpoints] = size;
+                        checkEntry[checkpoints] = i;
+                        checkBalance[checkpoints++] = balance;
+                        lastCheck = i;
+                    }
+                    size++;
+                }
+            }
+
+            @Override public int size() { return size; }
+            @Override public JournalEntry entry(int r) { seek(r); return MappedJournal.this.entry(rowEntry); }
+            @Override public long runningBalance(int r) { seek(r); return rowBalance; }
+            @Override public int indexOf(Transaction tx) { return -1; } // archives take no postings
+
+            private void seek(int target) {
+                if (target < 0 || target >= size) throw new IndexOutOfBoundsException("Row: " + target);
+                int c = Arrays.binarySearch(checkRow, 0, checkpoints, target);
+                if (c < 0) c = -c - 2; // last checkpoint before target
+                if (row < checkRow[c] || row > target) {
+                    row = checkRow[c];
+                    rowEntry = checkEntry[c];
+                    rowBalance = checkBalance[c];
+                }
+                while (row < target) {
+                    do rowEntry++; while (!touches(rowEntry, id));
+                    rowBalance = Money.add(rowBalance, effect(rowEntry));
+                    row++;
+                }
+            }
+
+            private long effect(int i) {
+                long effect = 0L;
+                if (isSplit(i)) {
+                    int split = creditOf(i);
+                    for (int line = lineStartOf(split), end = lineStartOf(split + 1); line < end; line++) {
+                        if (lineAccountOf(line) == id) effect += account.debitSign() * lineAmountOf(line);
+                    }
+                    return effect;
+                }
+                long amt = amountOf(i);
+                if (debitOf(i) == id) effect += account.debitSign() * amt;
+                if (creditOf(i) == id) effect -= account.debitSign() * amt;
+                return effect;
+            }
+        }
+
+        // Reads fields of the entry at index straight from the mapping
+        private final class Cursor implements JournalEntry {
+            int index;
+            private int cachedDay = Integer.MIN_VALUE;
+            private Date cachedDate;
+
+            @Override
+            public Date getDate() {
+                int d = dayOf(index);
+                if (d != cachedDay) {
+                    cachedDay = d;
+                    cachedDate = JournalFile.fromEpochDay(d);
+                }
+                return cachedDate;
+            }
+
+            @Override public String getDescription() { return description(get(desc, index, h.descriptionWidth)); }
+            @Override public long getAmount() { return amountOf(index); }
+
+            @Override
+            public String getDebitAccount() {
+                return isSplit(index) ? JournalEntry.sideLabel(this, true) : accountNames[debitOf(index)];
+            }
+
+            @Override
+            public String getCreditAccount() {
+                return isSplit(index) ? JournalEntry.sideLabel(this, false) : accountNames[creditOf(index)];
+            }
+
+            @Override
+            public int lineCount() {
+                if (!isSplit(index)) return 2;
+                int split = creditOf(index);
+                return lineStartOf(split + 1) - lineStartOf(split);
+            }
+
+            @Override
+            public String lineAccount(int line) {
+                if (!isSplit(index)) return line == 0 ? getDebitAccount() : getCreditAccount();
+                return accountNames[lineAccountOf(lineStartOf(creditOf(index)) + line)];
+            }
+
+            @Override
+            public long lineAmount(int line) {
+                if (!isSplit(index)) return line == 0 ? getAmount() : -getAmount();
+                return lineAmountOf(lineStartOf(creditOf(index)) + line);
+            }
+        }
+    }
+
+    // --- Write-ahead Journal Log (.acct.log) ---
+    // Append-only log of postings made since the .acct snapshot was written.
+    // Posting only copies a record into memory; a committer thread writes and
+    // fsyncs whatever has accumulated every COMMIT_INTERVAL_MS (group commit).
+    //
+    //   header  magic, version
+    //   record  int length, int crc32, then payload: long seq, int epochDay,
+    //           int debitId, int creditId, long amount, UTF-8 description
+    //
+    // A compound entry (version 2) has debitId -1, creditId its line count and
+    // amount its debit total, with that many (int accountId, long amount) lines
+    // before the description. Version 1 logs hold no such records.
+    //
+    // seq is the entry's position in posting order across the whole book, so a
+    // snapshot holding n entries replays only records with seq >= n.
+    private static final class JournalLog implements Closeable {
+        static final int MAGIC = 0x414C4F47; // "ALOG"
+        static final int VERSION = 2;
+        static final int HEADER_SIZE = 8;
+        private static final int RECORD_FIXED = 4 + 4 + 8 + 4 + 4 + 4 + 8;
+        private static final int SPLIT = -1;       // debitId of a compound entry's record
+        private static final int LINE_SIZE = 4 + 8; // accountId, amount
+        private static final long COMMIT_INTERVAL_MS = 20;
+
+        private final File file;
+        private final Object fileLock = new Object(); // held while the file is written or swapped
+        private FileChannel channel;                  // guarded by fileLock
+        private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+        private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+        private long nextSeq;      // seq of the next appended record
+        private long durableSeq;   // every record below this is on disk
+        private long recordsInFile;
+        private IOException failure;
+        private boolean closed;
+        private final Thread committer;
+
+        // Transactions recovered from a log, and where its last intact record ends
+        static final class Replay {
+            final List<Transaction> transactions = new ArrayList<>();
+            long validLength = HEADER_SIZE;
+            long records;
+        }
+
+        private JournalLog(File file, FileChannel channel, long nextSeq, long recordsInFile) {
+            this.file = file;
+            this.channel = channel;
+            this.nextSeq = nextSeq;
+            this.durableSeq = nextSeq;
+            this.recordsInFile = recordsInFile;
+            committer = new Thread(this::commitLoop, "journal-log-committer");
+            committer.setDaemon(true);
+            committer.start();
+        }
+
+        static File logFileFor(File book) {
+            return new File(book.getPath() + ".log");
+        }
+
+        /** Starts an empty log whose first record will carry seq firstSeq. */
+        static JournalLog create(File file, long firstSeq) throws IOException {
+            FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            writeHeader(ch);
+            ch.force(true);
+            return new JournalLog(file, ch, firstSeq, 0);
+        }
+
+        /** Reopens a replayed log for appending, dropping any torn tail. */
+        static JournalLog reopen(File file, Replay replay, long nextSeq) throws IOException {
+            FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ch.truncate(replay.validLength);
+            ch.position(replay.validLength);
+            return new JournalLog(file, ch, nextSeq, replay.records);
+        }
+
+        /**
+         * Reads the records a snapshot of snapshotCount entries is missing. Returns null
+         * if there is no log. Stops quietly at the first torn or corrupt record.
+         */
+        static Replay replay(File file, List<Account> accounts, long snapshotCount) throws IOException {
+            if (!file.exists()) return null;
+            Replay replay = new Replay();
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = ch.size();
+                if (size < HEADER_SIZE) return replay;
+                ChannelReader in = new ChannelReader(ch, 0);
+                int magic = in.getInt(), version = in.getInt();
+                if (magic != MAGIC || version < 1 || version > VERSION) throw new IOException("Not a journal log: " + file);
+
+                long position = HEADER_SIZE;
+                long expected = snapshotCount;
+                CRC32 crc = new CRC32();
+                while (position + 8 <= size) {
+                    int length = in.getInt();
+                    int checksum = in.getInt();
+                    if (length < RECORD_FIXED - 8 || position + 8 + length > size) break;
+                    byte[] payload = in.getBytes(length);
+                    crc.reset();
+                    crc.update(payload, 0, payload.length);
+                    if ((int) crc.getValue() != checksum) break;
+
+                    ByteBuffer r = ByteBuffer.wrap(payload);
+                    long seq = r.getLong();
+                    int day = r.getInt(), debit = r.getInt(), credit = r.getInt();
+                    long amount = r.getLong();
+                    String[] lineAccounts = null;
+                    long[] lineAmounts = null;
+                    if (debit == SPLIT) {
+                        if (credit < 0 || credit > r.remaining() / LINE_SIZE) throw new IOException("Corrupt journal log record");
+                        lineAccounts = new String[credit];
+                        lineAmounts = new long[credit];
+                        for (int line = 0; line < credit; line++) {
+                            lineAccounts[line] = accounts.get(r.getInt()).getName();
+                            lineAmounts[line] = r.getLong();
+                        }
+                    }
+                    String desc = new String(payload, r.position(), r.remaining(), StandardCharsets.UTF_8);
+                    position += 8 + length;
+                    replay.validLength = position;
+                    replay.records++;
+
+                    if (seq < expected) continue; // already in the snapshot
+                    if (seq > expected) throw new IOException("Journal log is missing entries " + expected + " to " + (seq - 1));
+                    Date date = JournalFile.fromEpochDay(day);
+                    replay.transactions.add(lineAccounts != null
+                            ? new Transaction(date, desc, lineAccounts, lineAmounts)
+                            : new Transaction(date, desc, accounts.get(debit).getName(), accounts.get(credit).getName(), amount));
+                    expected++;
+                }
+            } catch (IndexOutOfBoundsException ex) {
+                throw new IOException("Journal log refers to an unknown account", ex);
+            }
+            return replay;
+        }
+
+        /** Queues a posting; it becomes durable within one commit interval. */
+        public synchronized void append(Transaction tx, AccountRegistry accounts) throws IOException {
+            if (failure != null) throw failure;
+            if (closed) throw new IOException("Journal log is closed");
+            byte[] desc = tx.getDescription().getBytes(StandardCharsets.UTF_8);
+            int lines = tx.isCompound() ? tx.lineCount() : 0;
+            ByteBuffer payload = ByteBuffer.allocate(RECORD_FIXED - 8 + LINE_SIZE * lines + desc.length);
+            payload.putLong(nextSeq).putInt(JournalFile.toEpochDay(tx.getDate()));
+            if (tx.isCompound()) {
+                payload.putInt(SPLIT).putInt(lines).putLong(tx.getAmount());
+                for (int line = 0; line < lines; line++) {
+                    payload.putInt(accounts.indexOf(accounts.byName(tx.lineAccount(line)))).putLong(tx.lineAmount(line));
+                }
+            } else {
+                payload.putInt(accounts.indexOf(accounts.byName(tx.getDebitAccount())))
+                       .putInt(accounts.indexOf(accounts.byName(tx.getCreditAccount())))
+                       .putLong(tx.getAmount());
+            }
+            payload.put(desc);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, payload.capacity());
+
+            if (pending.remaining() < 8 + payload.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + 8 + payload.capacity()));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            pending.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array());
+            nextSeq++;
+        }
+
+        /** Blocks until everything appended so far is on disk. */
+        public synchronized void sync() throws IOException {
+            long target = nextSeq;
+            notifyAll();
+            while (durableSeq < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while syncing the journal log");
+                }
+            }
+            if (failure != null) throw failure;
+        }
+
+        public synchronized long recordsInFile() {
+            return recordsInFile + (nextSeq - durableSeq);
+        }
+
+        /**
+         * Drops records a newer snapshot of snapshotCount entries already holds, by
+         * copying the remaining tail into a fresh log and swapping it in atomically.
+         */
+        public void compactBefore(long snapshotCount) throws IOException {
+            // The committer writes only while holding fileLock, so the file now ends with
+            // the last record below durableSeq; postings appended meanwhile stay pending
+            // and go to the new file on the next commit
+            synchronized (fileLock) {
+                long durable;
+                synchronized (this) {
+                    if (failure != null) throw failure;
+                    durable = durableSeq;
+                }
+                File tmp = new File(file.getPath() + ".tmp");
+                try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    writeHeader(out);
+                    // Records are in seq order, so the kept ones are a contiguous suffix
+                    long end = channel.size();
+                    long position = firstRecordAtOrAfter(channel, snapshotCount);
+                    while (position < end) position += channel.transferTo(position, end - position, out);
+                    out.force(true);
+                }
+                channel.close();
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+                synchronized (this) {
+                    recordsInFile = Math.max(0, durable - snapshotCount);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                sync();
+            } finally {
+                synchronized (this) {
+                    closed = true;
+                    notifyAll();
+                }
+                try {
+                    committer.join();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (fileLock) {
+                    channel.close();
+                }
+            }
+        }
+
+        private void commitLoop() {
+            while (true) {
+                long batchEnd;
+                synchronized (this) {
+                    while (pending.position() == 0 && !closed) {
+                        try {
+                            wait(COMMIT_INTERVAL_MS);
+                        } catch (InterruptedException ex) {
+                            return;
+                        }
+                    }
+                    if (pending.position() == 0) return; // closed and drained
+                    ByteBuffer swap = writing;
+                    writing = pending;
+                    pending = swap;
+                    pending.clear();
+                    batchEnd = nextSeq;
+                }
+                try {
+                    synchronized (fileLock) {
+                        writing.flip();
+                        while (writing.hasRemaining()) channel.write(writing);
+                        channel.force(false);
+                        writing.clear();
+                        synchronized (this) {
+                            recordsInFile += batchEnd - durableSeq;
+                            durableSeq = batchEnd;
+                            notifyAll();
+                        }
+                    }
+                } catch (IOException ex) {
+                    synchronized (this) {
+                        failure = ex;
+                        notifyAll();
+                    }
+                    return;
+                }
+                // Let postings gather into the next group before writing again
+                try {
+                    Thread.sleep(COMMIT_INTERVAL_MS);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+
+        private static void writeHeader(FileChannel ch) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            while (header.hasRemaining()) ch.write(header);
+        }
+
+        private static long firstRecordAtOrAfter(FileChannel ch, long seq) throws IOException {
+            long size = ch.size();
+            long position = HEADER_SIZE;
+            ByteBuffer head = ByteBuffer.allocate(16);
+            while (position + 16 <= size) {
+                head.clear();
+                while (head.hasRemaining() && ch.read(head, position + head.position()) > 0) { }
+                int length = head.getInt(0);
+                if (head.getLong(8) >= seq) return position;
+                position += 8 + length;
+            }
+            return size;
+        }
+    }
+
+    private void saveFile() {
+        if (loader != null) {
+            JOptionPane.showMessageDialog(this, "Wait for the file to finish loading before saving.", "Save", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        if (archive != null) {
+            JOptionPane.showMessageDialog(this, "This archive is open read-only; there is nothing to save.", "Save", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        // An open book is already on disk; saving only waits for the log to catch up
+        if (currentBook != null && engine.log() != null) {
+            try {
+                engine.log().sync();
+                JOptionPane.showMessageDialog(this, "All postings saved to:\n" + currentBook.getAbsolutePath(), "Save Successful", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+            }
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Accounting File");
+        
+        int userSelection = fileChooser.showSaveDialog(this);
+        
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            File fileToSave = fileChooser.getSelectedFile();
+            if (!fileToSave.getName().toLowerCase().endsWith(".acct")) {
+                fileToSave = new File(fileToSave.toString() + ".acct");
+            }
+            
+            try {
+                JournalFile.writeAtomically(fileToSave, engine.accounts(), engine.journal());
+                openJournalLog(fileToSave, JournalLog.create(JournalLog.logFileFor(fileToSave), engine.size()));
+                JOptionPane.showMessageDialog(this, "File saved successfully to:\n" + fileToSave.getAbsolutePath(), "Save Successful", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException | ArithmeticException ex) {
+                JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void openFile() {
+        if (loader != null) {
+            JOptionPane.showMessageDialog(this, "A file is already loading. Cancel it first to open another.");
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Open Accounting File");
+        
+        int userSelection = fileChooser.showOpenDialog(this);
+        
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            File fileToOpen = fileChooser.getSelectedFile();
+
+            // Start from an empty book; the loader fills the journal in as it reads
+            closeArchive();
+            closeJournalLog();
+            engine.reset(new AccountRegistry());
+            refreshAllViews();
+
+            loader = new BookLoader(fileToOpen);
+            loader.addPropertyChangeListener(e -> {
+                if ("progress".equals(e.getPropertyName())) loadingBar.setValue((Integer) e.getNewValue());
+            });
+            loadingLabel.setText("Loading " + fileToOpen.getName() + "...");
+            loadingBar.setValue(0);
+            loadingPanel.setVisible(true);
+            loader.execute();
+        }
+    }
+
+    // Browses a .acct file through a read-only mapping instead of loading it
+    private void openArchive() {
+        if (loader != null) {
+            JOptionPane.showMessageDialog(this, "A file is already loading. Cancel it first to open another.");
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Open Archive (Read-only)");
+
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File fileToOpen = fileChooser.getSelectedFile();
+
+        try {
+            if (JournalFile.isLegacyFile(fileToOpen)) {
+                JOptionPane.showMessageDialog(this, "Legacy .dat files cannot be opened read-only. Use 'Open File' instead.", "Open Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            MappedJournal mapped = MappedJournal.open(fileToOpen);
+            JournalLog.Replay pending = JournalLog.replay(JournalLog.logFileFor(fileToOpen), mapped.accounts(), mapped.size());
+
+            closeJournalLog();
+            AccountRegistry loaded = new AccountRegistry();
+            loaded.setAll(mapped.accounts());
+            engine.reset(loaded);
+            archive = mapped;
+            journalSource = mapped;
+            setTitle("Accounting System - " + fileToOpen.getName() + " (read-only)");
+
+            refreshAllViews();
+
+            String note = pending != null && !pending.transactions.isEmpty()
+                    ? "\n\n" + pending.transactions.size() + " later postings in its journal log are not shown. Use 'Open File' to include them."
+                    : "";
+            JOptionPane.showMessageDialog(this, "Archive opened read-only from:\n" + fileToOpen.getAbsolutePath() + note, "Open Successful", JOptionPane.INFORMATION_MESSAGE);
+        } catch (FileNotFoundException | NoSuchFileException ex) {
+            JOptionPane.showMessageDialog(this, "File not found.", "Open Error", JOptionPane.ERROR_MESSAGE);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Error opening file. Check the file format. Details: " + ex.getMessage(), "Open Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void closeArchive() {
+        if (archive == null) return;
+        archive = null;
+        journalSource = engine.journal();
+        setTitle("Accounting System");
+    }
+
+    // Makes log the book's log, closing the one of any previously open book
+    private void openJournalLog(File book, JournalLog log) {
+        closeJournalLog();
+        currentBook = book;
+        engine.setLog(log);
+    }
+
+    private void closeJournalLog() {
+        JournalLog log = engine.setLog(null);
+        currentBook = null;
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Error writing the journal log: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Folds the log into a fresh snapshot once replaying it would cost more than rewriting
+    private void compactIfNeeded() {
+        final JournalLog log = engine.log();
+        if (log == null || compacting) return;
+        if (log.recordsInFile() < Math.max(COMPACT_MIN_RECORDS, engine.size() / 2)) return;
+
+        // Snapshot the current state on the EDT; the rewrite itself runs in the background
+        final File book = currentBook;
+        LedgerEngine.Snapshot snapshot = engine.snapshot();
+        final AccountRegistry accountsCopy = snapshot.accounts;
+        final Journal journalCopy = snapshot.journal;
+        compacting = true;
+
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                JournalFile.writeAtomically(book, accountsCopy, journalCopy);
+                log.compactBefore(journalCopy.size());
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                compacting = false;
+                try {
+                    get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    // The log still holds every posting, so nothing is lost; the next posting retries
+                    JOptionPane.showMessageDialog(AccountingApp.this, "Error compacting the journal log: " + ex.getCause().getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    // Reads a pre-.acct save written with ObjectOutputStream
+    private static AccountingData readLegacyFile(File file) throws IOException, ClassNotFoundException {
+        return readLegacyFile(file, null);
+    }
+
+    // bytesRead, if given, is told how far into the file deserialization has got
+    private static AccountingData readLegacyFile(File file, java.util.function.LongConsumer bytesRead) throws IOException, ClassNotFoundException {
+        try (FileInputStream fileIn = new FileInputStream(file);
+             ObjectInputStream objectIn = new ObjectInputStream(new BufferedInputStream(countingStream(fileIn, bytesRead), 1 << 16))) {
+            return (AccountingData) objectIn.readObject();
+        }
+    }
+
+    private static InputStream countingStream(InputStream in, java.util.function.LongConsumer bytesRead) {
+        if (bytesRead == null) return in;
+        return new FilterInputStream(in) {
+            private long count;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytesRead.accept(++count);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int k = super.read(b, off, len);
+                if (k > 0) bytesRead.accept(count += k);
+                return k;
+            }
+        };
+    }
+
+    // --- Background Loading ---
+    // openFile() reads on a SwingWorker: chunks of entries are published to the EDT
+    // and appended to the journal as they arrive, while accounts, their balances and
+    // the ledger index are built off the EDT and installed together when loading ends.
+    private class BookLoader extends SwingWorker<AccountingData, List<Transaction>> {
+        private static final int PUBLISH_CHUNK = 1 << 16;
+
+        private final File file;
+        private boolean legacy;
+        private final AccountRegistry loaded = new AccountRegistry();
+        private final PostingIndex index = new PostingIndex();
+        private final SearchIndex search = new SearchIndex();
+        private JournalLog.Replay replay;
+        private long snapshotCount;
+        private int applied;      // entries process() has added to the journal
+        private boolean finished; // set by done(); chunks still queued after it are ignored
+
+        BookLoader(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected AccountingData doInBackground() throws Exception {
+            // Old .dat saves are imported; the next Save writes them as .acct
+            legacy = JournalFile.isLegacyFile(file);
+            if (legacy) {
+                final long length = Math.max(1L, file.length());
+                AccountingData data = readLegacyFile(file, n -> setProgress((int) Math.min(99L, n * 100 / length)));
+                loaded.setAll(data.accounts);
+                data.transactions.sort(Comparator.comparing(Transaction::getDate)); // stable, like Journal.setAll
+                for (int from = 0; from < data.transactions.size(); from += PUBLISH_CHUNK) {
+                    publishChunk(data.transactions.subList(from, Math.min(data.transactions.size(), from + PUBLISH_CHUNK)));
+                }
+                return data;
+            }
+
+            AccountingData data = JournalFile.read(file, new JournalFile.ReadListener() {
+                @Override
+                public void accountsRead(List<Account> accounts) {
+                    loaded.setAll(accounts);
+                }
+
+                @Override
+                public void chunkRead(List<Transaction> chunk, int entriesRead, int total) throws IOException {
+                    publishChunk(chunk);
+                    setProgress((int) (entriesRead * 99L / total));
+                }
+            });
+
+            // Postings made after the snapshot was written come back from its log
+            snapshotCount = data.transactions.size();
+            replay = JournalLog.replay(JournalLog.logFileFor(file), data.accounts, snapshotCount);
+            if (replay != null) {
+                for (Transaction tx : replay.transactions) {
+                    LedgerEngine.applyEntry(loaded, tx);
+                }
+                publishChunk(replay.transactions);
+            }
+            setProgress(100);
+            return data;
+        }
+
+        private void publishChunk(List<Transaction> chunk) throws InterruptedIOException {
+            if (isCancelled()) throw new InterruptedIOException("Loading cancelled");
+            for (Transaction tx : chunk) {
+                index.add(tx, loaded);
+                search.add(tx);
+            }
+            publish(new ArrayList<>(chunk));
+        }
+
+        @Override
+        protected void process(List<List<Transaction>> chunks) {
+            if (isCancelled() || finished) return;
+            for (List<Transaction> chunk : chunks) {
+                engine.appendLoaded(chunk);
+                applied += chunk.size();
+            }
+            // Coalesced: one table event per batch of chunks rather than per row.
+            // Search waits for the index, which is installed with the rest in done().
+            if (transactionsQuery.isEmpty()) transactionsTableModel.fireTableDataChanged();
+            journalTableModel.fireTableDataChanged();
+            loadingLabel.setText("Loading " + file.getName() + "... " + String.format("%,d", engine.size()) + " entries");
+        }
+
+        @Override
+        protected void done() {
+            loader = null;
+            finished = true;
+            loadingPanel.setVisible(false);
+            try {
+                AccountingData data = get();
+                // process() can run after done(), so add whatever it has not reached yet
+                int n = data.transactions.size();
+                if (applied < n) engine.appendLoaded(data.transactions.subList(applied, n));
+                if (replay != null) {
+                    int from = Math.max(0, applied - n);
+                    if (from < replay.transactions.size()) engine.appendLoaded(replay.transactions.subList(from, replay.transactions.size()));
+                }
+
+                JournalLog log = null;
+                if (!legacy) {
+                    File logFile = JournalLog.logFileFor(file);
+                    log = replay == null
+                            ? JournalLog.create(logFile, snapshotCount)
+                            : JournalLog.reopen(logFile, replay, snapshotCount + replay.transactions.size());
+                }
+
+                // Balances and the ledger index become visible only now, complete
+                engine.install(loaded, index, search);
+                openJournalLog(legacy ? null : file, log);
+
+                // Ensure accounts are re-initialized if file was empty or corrupted (safety check)
+                if (engine.accounts().isEmpty()) {
+                    addPredefinedAccounts();
+                    engine.rebuildPostings();
+                }
+                refreshAllViews();
+
+                String note = legacy ? "\n\nThis is a legacy .dat file. Save it to convert it to the .acct format." : "";
+                JOptionPane.showMessageDialog(AccountingApp.this, "File loaded successfully from:\n" + file.getAbsolutePath() + note, "Open Successful", JOptionPane.INFORMATION_MESSAGE);
+            } catch (CancellationException ex) {
+                resetBook();
+                JOptionPane.showMessageDialog(AccountingApp.this, "Loading cancelled.", "Open", JOptionPane.INFORMATION_MESSAGE);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                resetBook();
+            } catch (ExecutionException | IOException ex) {
+                resetBook();
+                Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+                if (cause instanceof FileNotFoundException || cause instanceof NoSuchFileException) {
+                    JOptionPane.showMessageDialog(AccountingApp.this, "File not found.", "Open Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(AccountingApp.this, "Error opening file. Check the file format. Details: " + cause.getMessage(), "Open Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
+    }
+
+    // Leaves an empty book with the predefined accounts after a failed or cancelled load
+    private void resetBook() {
+        engine.reset(new AccountRegistry());
+        addPredefinedAccounts();
+        refreshAllViews();
+    }
+
+    private JPanel createLoadingPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 0));
+        panel.setBackground(BACKGROUND_LIGHT);
+        panel.setBorder(new EmptyBorder(5, 10, 5, 10));
+
+        loadingLabel = new JLabel();
+        loadingLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        loadingLabel.setForeground(PRIMARY_BLUE);
+        loadingBar = new JProgressBar(0, 100);
+        loadingBar.setStringPainted(true);
+        JButton cancelBtn = createStyledButton("Cancel");
+        cancelBtn.addActionListener(e -> {
+            if (loader != null) loader.cancel(true);
+        });
+
+        panel.add(loadingLabel, BorderLayout.WEST);
+        panel.add(loadingBar, BorderLayout.CENTER);
+        panel.add(cancelBtn, BorderLayout.EAST);
+        panel.setVisible(false);
+        return panel;
+    }
+    // --- End Background Loading ---
+    
+    // Helper method for creating styled labels
+    private JLabel createFormLabel(String text) {
+        JLabel lbl = new JLabel(text);
+        lbl.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        lbl.setForeground(PRIMARY_BLUE);
+        return lbl;
+    }
+
+
+    // --- Panel Creation Methods (Redesigned UI) ---
+
+    private JPanel createAddTransactionPanel() {
+        JPanel panel = new JPanel(new BorderLayout(15, 15));
+        panel.setBackground(BACKGROUND_LIGHT);
+        panel.setBorder(new EmptyBorder(30, 100, 30, 100)); // Added padding
+        
+        JLabel title = new JLabel("Post New Journal Entry");
+        title.setFont(new Font("Segoe UI", Font.BOLD, 22));
+        title.setForeground(PRIMARY_BLUE);
+        title.setHorizontalAlignment(SwingConstants.CENTER);
+        panel.add(title, BorderLayout.NORTH);
+
+        JPanel form = new JPanel(new GridBagLayout());
+        form.setBackground(Color.WHITE);
+        form.setBorder(BorderFactory.createLineBorder(PRIMARY_BLUE.darker(), 1));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(12, 15, 12, 15);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1.0;
+
+        JTextField dateField = new JTextField(sdf.format(new Date()));
+        JTextField descField = new JTextField();
+        debitComboGlobal = new JComboBox<>();
+        creditComboGlobal = new JComboBox<>();
+        JTextField amountField = new JTextField();
+
+        // Style Form Components
+        dateField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        descField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        amountField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        debitComboGlobal.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        creditComboGlobal.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        
+        refreshAccountCombos();
+        
+
+        gbc.gridx = 0; gbc.gridy = 0; form.add(createFormLabel("Date (YYYY-MM-DD):"), gbc);
+        gbc.gridx = 1; form.add(dateField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 1; form.add(createFormLabel("Description:"), gbc);
+        gbc.gridx = 1; form.add(descField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 2; form.add(createFormLabel("Debit Account:"), gbc);
+        gbc.gridx = 1; form.add(debitComboGlobal, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 3; form.add(createFormLabel("Credit Account:"), gbc);
+        gbc.gridx = 1; form.add(creditComboGlobal, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 4; form.add(createFormLabel("Amount:"), gbc);
+        gbc.gridx = 1; form.add(amountField, gbc);
+        
+        panel.add(form, BorderLayout.CENTER);
+
+        // Buttons Panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
+        buttonPanel.setOpaque(false);
+        JButton postBtn = createStyledButton("Post Transaction (F5)");
+        JButton compoundBtn = createStyledButton("Compound Entry...");
+        JButton clearBtn = createStyledButton("Clear Fields (Esc)");
+        
+        postBtn.setBackground(SECONDARY_MINT.darker());
+        postBtn.setForeground(Color.WHITE);
+        clearBtn.setBackground(Color.LIGHT_GRAY);
+        clearBtn.setForeground(PRIMARY_BLUE);
+
+        buttonPanel.add(postBtn);
+        buttonPanel.add(compoundBtn);
+        buttonPanel.add(clearBtn);
+        
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        // Action listeners remain the same
+        postBtn.addActionListener(e -> postTransaction(dateField, descField, amountField));
+        compoundBtn.addActionListener(e -> showCompoundEntryDialog());
+        clearBtn.addActionListener(e -> clearTransactionFields(dateField, descField, amountField));
+        
+        // Add Key Bindings (F5 to post, Esc to clear)
+        InputMap inputMap = panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actionMap = panel.getActionMap();
+
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), "post");
+        actionMap.put("post", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                postTransaction(dateField, descField, amountField);
+            }
+        });
+        
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "clear");
+        actionMap.put("clear", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                clearTransactionFields(dateField, descField, amountField);
+            }
+        });
+
+
+        return panel;
+    }
+    
+    // Extracted transaction logic
+    private void postTransaction(JTextField dateField, JTextField descField, JTextField amountField) {
+        if (!canPost()) return;
+        String dateStr = dateField.getText().trim();
+        String desc = descField.getText().trim();
+        
+        String debitAccComboItem = (String) debitComboGlobal.getSelectedItem();
+        String creditAccComboItem = (String) creditComboGlobal.getSelectedItem();
+        String debitAccName = extractAccountName(debitAccComboItem);
+        String creditAccName = extractAccountName(creditAccComboItem);
+        
+        String amtStr = amountField.getText().trim();
+
+        Date date;
+        try {
+            date = sdf.parse(dateStr);
+        } catch (ParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.");
+            return;
+        }
+
+        long amount;
+        try {
+            amount = Money.parse(amtStr);
+            if (amount <= 0) throw new NumberFormatException();
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Amount must be a number greater than zero, with at most two decimals.");
+            return;
+        }
+
+        if (debitAccName == null || creditAccName == null) {
+            JOptionPane.showMessageDialog(this, "Select both debit and credit accounts.");
+            return;
+        }
+
+        if (postAndShow(this, () -> engine.post(date, desc, debitAccName, creditAccName, amount)) == null) return;
+
+        JOptionPane.showMessageDialog(this, "Transaction posted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+        clearTransactionFields(dateField, descField, amountField);
+    }
+
+    private boolean canPost() {
+        if (loader != null) {
+            JOptionPane.showMessageDialog(this, "Wait for the file to finish loading before posting.");
+            return false;
+        }
+        if (archive != null) {
+            JOptionPane.showMessageDialog(this, "This archive is open read-only. Open it with 'Open File' to post transactions.");
+            return false;
+        }
+        return true;
+    }
+
+    private interface PostingAction {
+        LedgerEngine.Posting post() throws IOException;
+    }
+
+    // Runs one engine posting and updates the views; a refused posting is explained on parent and gives null
+    private LedgerEngine.Posting postAndShow(Component parent, PostingAction action) {
+        LedgerEngine.Posting posting;
+        try {
+            posting = action.post();
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(parent, ex.getMessage());
+            return null;
+        } catch (ArithmeticException ex) {
+            JOptionPane.showMessageDialog(parent, "Amount is too large for the account balance.");
+            return null;
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(parent, "Posting could not be written to the journal log: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+
+        if (posting.index < 0) {
+            engine.flush(); // another thread was adding it to the journal
+            refreshAllViews();
+        } else {
+            for (Account a : posting.accounts) fireAccountBalanceChanged(a);
+            fireTransactionAdded(posting.index, posting.tx);
+        }
+        compactIfNeeded();
+        return posting;
+    }
+
+    // --- Compound Entries ---
+    // One journal entry with as many debit and credit lines as it needs, such as a
+    // payroll run or an invoice with several revenue and tax lines. It is posted
+    // whole, so the views update once rather than once per split.
+    private void showCompoundEntryDialog() {
+        if (!canPost()) return;
+        JDialog dialog = new JDialog(this, "Compound Journal Entry", true);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(640, 460);
+        dialog.setLocationRelativeTo(this);
+
+        JTextField dateField = new JTextField(sdf.format(new Date()), 10);
+        JTextField descField = new JTextField(24);
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        top.setBackground(Color.WHITE);
+        top.add(createFormLabel("Date:"));
+        top.add(dateField);
+        top.add(createFormLabel("Description:"));
+        top.add(descField);
+
+        DefaultTableModel lines = new DefaultTableModel(new Object[]{"Account", "Debit", "Credit"}, 4);
+        JTable table = new JTable(lines);
+        table.setRowHeight(24);
+        table.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
+        JComboBox<String> accountEditor = new JComboBox<>(getAllAccountNames().toArray(new String[0]));
+        table.getColumnModel().getColumn(0).setCellEditor(new DefaultCellEditor(accountEditor));
+
+        JLabel totals = createFormLabel(compoundTotals(lines));
+        lines.addTableModelListener(e -> totals.setText(compoundTotals(lines)));
+
+        JButton addBtn = createStyledButton("Add Line");
+        JButton removeBtn = createStyledButton("Remove Line");
+        JButton postBtn = createStyledButton("Post Entry");
+        JButton cancelBtn = createStyledButton("Cancel");
+        postBtn.setBackground(SECONDARY_MINT.darker());
+        postBtn.setForeground(Color.WHITE);
+        cancelBtn.setBackground(Color.LIGHT_GRAY);
+
+        addBtn.addActionListener(e -> lines.addRow(new Object[3]));
+        removeBtn.addActionListener(e -> {
+            if (table.isEditing()) table.getCellEditor().cancelCellEditing();
+            int row = table.getSelectedRow();
+            if (row >= 0) lines.removeRow(row);
+        });
+        postBtn.addActionListener(e -> {
+            if (table.isEditing()) table.getCellEditor().stopCellEditing();
+            if (postCompoundEntry(dialog, dateField.getText().trim(), descField.getText().trim(), lines)) dialog.dispose();
+        });
+        cancelBtn.addActionListener(e -> dialog.dispose());
+
+        JPanel south = new JPanel(new BorderLayout());
+        south.setBackground(Color.WHITE);
+        south.setBorder(new EmptyBorder(5, 10, 5, 10));
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        buttons.setOpaque(false);
+        buttons.add(addBtn);
+        buttons.add(removeBtn);
+        buttons.add(postBtn);
+        buttons.add(cancelBtn);
+        south.add(totals, BorderLayout.NORTH);
+        south.add(buttons, BorderLayout.SOUTH);
+
+        dialog.add(top, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.add(south, BorderLayout.SOUTH);
+        dialog.setVisible(true);
+    }
+
+    // Totals shown under the lines; a cell that is not an amount yet counts as zero
+    private String compoundTotals(TableModel lines) {
+        long debits = 0L, credits = 0L;
+        try {
+            for (int r = 0; r < lines.getRowCount(); r++) {
+                debits = Money.add(debits, cellCents(lines.getValueAt(r, 1)));
+                credits = Money.add(credits, cellCents(lines.getValueAt(r, 2)));
+            }
+        } catch (ArithmeticException ex) {
+            return "Amounts are too large.";
+        }
+        long difference = Money.subtract(debits, credits);
+        return "Debits " + formatCurrency(debits) + "    Credits " + formatCurrency(credits)
+                + (difference == 0 ? "    Balanced" : "    Out of balance by " + formatCurrency(Math.abs(difference)));
+    }
+
+    private static String cellText(Object value) {
+        return value == null ? "" : value.toString().trim();
+    }
+
+    private static long cellCents(Object value) {
+        try {
+            return Math.max(0L, Money.parse(cellText(value)));
+        } catch (NumberFormatException ex) {
+            return 0L;
+        }
+    }
+
+    // Blank rows are skipped; every other row needs an account and exactly one amount
+    private boolean postCompoundEntry(Component parent, String dateStr, String desc, TableModel lines) {
+        Date date;
+        try {
+            date = sdf.parse(dateStr);
+        } catch (ParseException ex) {
+            JOptionPane.showMessageDialog(parent, "Invalid date format. Use YYYY-MM-DD.");
+            return false;
+        }
+
+        List<LedgerEngine.EntryLine> entry = new ArrayList<>();
+        for (int r = 0; r < lines.getRowCount(); r++) {
+            String account = extractAccountName((String) lines.getValueAt(r, 0));
+            String debit = cellText(lines.getValueAt(r, 1));
+            String credit = cellText(lines.getValueAt(r, 2));
+            if (account == null && debit.isEmpty() && credit.isEmpty()) continue;
+            if (account == null) {
+                JOptionPane.showMessageDialog(parent, "Line " + (r + 1) + ": select an account.");
+                return false;
+            }
+            if (debit.isEmpty() == credit.isEmpty()) {
+                JOptionPane.showMessageDialog(parent, "Line " + (r + 1) + ": enter either a debit or a credit amount.");
+                return false;
+            }
+            long amount;
+            try {
+                amount = Money.parse(debit.isEmpty() ? credit : debit);
+                if (amount <= 0) throw new NumberFormatException();
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(parent, "Line " + (r + 1) + ": amount must be a number greater than zero, with at most two decimals.");
+                return false;
+            }
+            entry.add(debit.isEmpty() ? LedgerEngine.EntryLine.credit(account, amount) : LedgerEngine.EntryLine.debit(account, amount));
+        }
+
+        if (postAndShow(parent, () -> engine.post(date, desc, entry)) == null) return false;
+        JOptionPane.showMessageDialog(parent, "Compound entry posted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+        return true;
+    }
+    // --- End Compound Entries ---
+    
+    private void clearTransactionFields(JTextField dateField, JTextField descField, JTextField amountField) {
+        dateField.setText(sdf.format(new Date()));
+        descField.setText("");
+        amountField.setText("");
+        if (debitComboGlobal.getItemCount() > 0) debitComboGlobal.setSelectedIndex(0);
+        if (creditComboGlobal.getItemCount() > 0) creditComboGlobal.setSelectedIndex(0);
+    }
+
+
+    private JPanel createTransactionsPanel() {
+        JPanel panel = createStyledPanel();
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        top.setBackground(Color.WHITE);
+        top.setBorder(new EmptyBorder(10, 10, 10, 10));
+        JTextField searchField = new JTextField(30);
+        searchField.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        JButton searchBtn = createStyledButton("Search");
+        
+        JLabel searchLabel = new JLabel("Search (date/description/account):");
+        searchLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        searchLabel.setForeground(PRIMARY_BLUE);
+        
+        top.add(searchLabel);
+        top.add(searchField);
+        top.add(searchBtn);
+
+        transactionsTableModel = new TransactionsTableModel();
+        JTable table = createStyledTable(transactionsTableModel);
+        
+        searchBtn.addActionListener(e -> {
+            String query = searchField.getText().trim().toLowerCase();
+            filterTransactions(query);
+        });
+
+        searchField.addActionListener(e -> filterTransactions(searchField.getText().trim().toLowerCase()));
+
+        // Search as you type, once typing pauses
+        searchTimer = new javax.swing.Timer(SEARCH_DELAY_MS, e -> filterTransactions(searchField.getText().trim().toLowerCase()));
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { searchTimer.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { searchTimer.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { searchTimer.restart(); }
+        });
+
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private JPanel createAccountsPanel() {
+        JPanel panel = createStyledPanel();
+        
+        String[] columns = {"Account no.", "Account Name", "Type", "Current Balance"}; 
+        accountsTableModel = new DefaultTableModel(columns, 0) {
+            public boolean isCellEditable(int r,int c){ return false; }
+        };
+        JTable table = createStyledTable(accountsTableModel);
+        
+        refreshAccountsTable();
+
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private JPanel createGeneralJournalPanel() {
+        JPanel panel = createStyledPanel();
+        journalTableModel = new JournalTableModel();
+        JTable table = createStyledTable(journalTableModel);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private JPanel createGeneralLedgerPanel() {
+        JPanel panel = createStyledPanel();
+        ledgerAccountCombo = new JComboBox<>();
+        refreshLedgerAccountCombo();
+        
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        top.setBackground(Color.WHITE);
+        top.setBorder(new EmptyBorder(10, 10, 10, 10));
+        
+        JLabel selectLabel = new JLabel("Select Account:");
+        selectLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        selectLabel.setForeground(PRIMARY_BLUE);
+        
+        ledgerAccountCombo.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        
+        top.add(selectLabel);
+        top.add(ledgerAccountCombo);
+
+        ledgerTableModel = new LedgerTableModel();
+        JTable table = createStyledTable(ledgerTableModel);
+
+        ledgerAccountCombo.addActionListener(e -> {
+            String acc = (String) ledgerAccountCombo.getSelectedItem();
+            if (acc != null) updateGeneralLedgerTable(acc);
+        });
+
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private JPanel createBalanceSheetPanel() {
+        JPanel panel = createStyledPanel();
+        JPanel sheets = new JPanel(new GridLayout(1,2, 10, 10)); // Added spacing between panels
+        sheets.setBackground(BACKGROUND_LIGHT);
+        
+        // ASSETS PANEL
+        JPanel assetsPanel = createStyledSubPanel("Assets");
+        String[] assetCols = {"Account Name", "Amount"};
+        assetsTableModel = new DefaultTableModel(assetCols, 0) {
+            public boolean isCellEditable(int r,int c){ return false; }
+        };
+        JTable assetsTable = createStyledTable(assetsTableModel);
+        assetsPanel.add(new JScrollPane(assetsTable), BorderLayout.CENTER);
+        JLabel totalAssetsLabel = createTotalLabel();
+        assetsPanel.add(totalAssetsLabel, BorderLayout.SOUTH);
+
+        // LIABILITIES AND EQUITY PANEL
+        JPanel liabilitiesPanel = createStyledSubPanel("Liabilities and Equity");
+        String[] liabCols = {"Account Name", "Amount"};
+        liabilitiesTableModel = new DefaultTableModel(liabCols, 0) {
+            public boolean isCellEditable(int r,int c){ return false; }
+        };
+        JTable liabTable = createStyledTable(liabilitiesTableModel);
+        liabilitiesPanel.add(new JScrollPane(liabTable), BorderLayout.CENTER);
+        JLabel totalLiabLabel = createTotalLabel();
+        liabilitiesPanel.add(totalLiabLabel, BorderLayout.SOUTH);
+
+        sheets.add(assetsPanel);
+        sheets.add(liabilitiesPanel);
+
+        // As-of date: balances at the end of that day instead of current ones
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        top.setBackground(Color.WHITE);
+        top.setBorder(new EmptyBorder(10, 10, 10, 10));
+        JLabel asOfLabel = new JLabel("As of (YYYY-MM-DD):");
+        asOfLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        asOfLabel.setForeground(PRIMARY_BLUE);
+        JTextField asOfField = new JTextField(12);
+        asOfField.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        JButton showBtn = createStyledButton("Show");
+        JButton currentBtn = createStyledButton("Current");
+        JLabel showingLabel = new JLabel();
+        showingLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        showingLabel.setForeground(PRIMARY_BLUE);
+
+        showBtn.addActionListener(e -> setBalanceSheetAsOf(asOfField.getText().trim()));
+        asOfField.addActionListener(e -> setBalanceSheetAsOf(asOfField.getText().trim()));
+        currentBtn.addActionListener(e -> {
+            asOfField.setText("");
+            setBalanceSheetAsOf("");
+        });
+
+        top.add(asOfLabel);
+        top.add(asOfField);
+        top.add(showBtn);
+        top.add(currentBtn);
+        top.add(showingLabel);
+
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(sheets, BorderLayout.CENTER);
+
+        Runnable updateLabels = () -> {
+            showingLabel.setText(balanceSheetAsOf == null ? "Showing current balances" : "Showing balances as of " + sdf.format(balanceSheetAsOf));
+            long[] totals = sheetTotals();
+            totalAssetsLabel.setText("Total Assets: " + formatAccounting(calculateTotalAssets(totals)));
+            totalLiabLabel.setText("Total Liabilities & Equity: " + formatAccounting(calculateTotalLiabilitiesAndEquity(totals)));
+        };
+
+        updateLabels.run();
+        panel.putClientProperty("updateLabels", updateLabels);
+        return panel;
+    }
+    
+    // Styled UI helpers
+    private JPanel createStyledPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(BACKGROUND_LIGHT);
+        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        return panel;
+    }
+    
+    private JPanel createStyledSubPanel(String titleText) {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBackground(Color.WHITE);
+        panel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(PRIMARY_BLUE, 1),
+            titleText,
+            javax.swing.border.TitledBorder.LEADING,
+            javax.swing.border.TitledBorder.TOP,
+            new Font("Segoe UI", Font.BOLD, 16),
+            SECONDARY_MINT.darker()
+        ));
+        return panel;
+    }
+    
+    /**
+     * Creates a styled JTable, setting the header to dark blue 
+     * and minimizing selection/hover effects.
+     */
+    private JTable createStyledTable(TableModel model) {
+        JTable table = new JTable(model);
+        // The virtual journal models stay in journal order: a sorter would format every row
+        table.setAutoCreateRowSorter(model instanceof DefaultTableModel);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.setRowHeight(25);
+        table.setFillsViewportHeight(true);
+        
+        // --- Header Styling Fixes (Row 1) ---
+        JTableHeader header = table.getTableHeader();
+        header.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        final Color HEADER_BG = PRIMARY_BLUE.darker();
+        final Color HEADER_FG = Color.WHITE;
+
+        // 1. Set the fixed background and foreground colors
+        header.setBackground(HEADER_BG);
+        header.setForeground(HEADER_FG);
+        
+        // 2. Override the default header renderer to guarantee consistent colors 
+        //    and ignore selection/focus states (which cause the unwanted 'hover' effect).
+        header.setDefaultRenderer(new TableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable jTable, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                JLabel label = new JLabel(value.toString(), SwingConstants.CENTER);
+                label.setOpaque(true);
+                label.setBackground(HEADER_BG);
+                label.setForeground(HEADER_FG);
+                label.setFont(header.getFont());
+                label.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 1, Color.LIGHT_GRAY));
+                return label;
+            }
+        });
+
+        // --- Table Row Styling Fixes (Removing Hover on Data Rows) ---
+        // Minimize/remove visual hover/selection effect for data rows
+        Color defaultTableBackground = table.getBackground();
+        Color defaultTableForeground = table.getForeground();
+        table.setSelectionBackground(defaultTableBackground);
+        table.setSelectionForeground(defaultTableForeground);
+        
+        return table;
+    }
+    
+    private JLabel createTotalLabel() {
+        JLabel label = new JLabel("", SwingConstants.RIGHT);
+        label.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        label.setForeground(PRIMARY_BLUE);
+        label.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        label.setBackground(new Color(230, 230, 230)); // Light gray background for total
+        label.setOpaque(true);
+        return label;
+    }
+    // End Styled UI helpers
+
+    // --- Asynchronous Search ---
+    // Typing only restarts searchTimer; once input pauses for SEARCH_DELAY_MS the
+    // query runs on a SearchWorker, and a newer query cancels any still in flight.
+    // Only the last worker's result reaches the table.
+
+    private void filterTransactions(String query) {
+        if (searchTimer != null) searchTimer.stop();
+        if (searchWorker != null) {
+            searchWorker.cancel(true);
+            searchWorker = null;
+        }
+        if (query.isEmpty()) {
+            transactionsQuery = query;
+            transactionsTableModel.setMatches(null);
+            return;
+        }
+        searchWorker = new SearchWorker(query);
+        searchWorker.execute();
+    }
+
+    private class SearchWorker extends SwingWorker<int[], Void> {
+        private final String query;
+        // Captured on the EDT, so postings made while searching can be told apart
+        private final SearchIndex index = engine.searchIndex();
+        private final MappedJournal source = archive;
+        private final int indexed = index.size();
+
+        SearchWorker(String query) {
+            this.query = query;
+        }
+
+        @Override
+        protected int[] doInBackground() {
+            if (source != null) return source.search(query, this::isCancelled);
+            return index.search(query, indexed);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || searchWorker != this) return;
+            searchWorker = null;
+            if (index != engine.searchIndex() || source != archive) return; // another book was opened meanwhile
+            try {
+                transactionsQuery = query;
+                transactionsTableModel.setMatches(get());
+                for (int id = indexed; id < index.size(); id++) {
+                    if (matchesQuery(index.transaction(id), query)) transactionsTableModel.insertMatch(id);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                JOptionPane.showMessageDialog(AccountingApp.this, "Search failed: " + ex.getCause().getMessage(), "Search Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+    // --- End Asynchronous Search ---
+
+    private boolean matchesQuery(Transaction tx, String query) {
+        if (query.isEmpty()
+                || sdf.format(tx.getDate()).contains(query)
+                || tx.getDescription().toLowerCase().contains(query)) {
+            return true;
+        }
+        // A simple entry's lines are its debit and credit accounts
+        for (int line = 0, n = tx.lineCount(); line < n; line++) {
+            if (tx.lineAccount(line).toLowerCase().contains(query)) return true;
+        }
+        return false;
+    }
+
+    private void refreshAccountsTable() {
+        if (accountsTableModel == null) return;
+        accountsTableModel.setRowCount(0);
+        for (Account a : engine.accounts()) {
+            accountsTableModel.addRow(new Object[]{a.getAccountNumber(), a.getName(), a.getType(), formatAccounting(a.getBalance())});
+        }
+    }
+
+    private void updateGeneralLedgerTable(String accountName) {
+        ledgerTableModel.setAccount(getAccountByName(accountName));
+    }
+
+    private List<String> getAllAccountNames() {
+        List<String> out = new ArrayList<>();
+        for (Account a : engine.accounts()) out.add(a.getName());
+        return out;
+    }
+
+    private void refreshAccountCombos() {
+        List<String> allAccountNames = getAllAccountNames();
+
+        if (debitComboGlobal != null) {
+            debitComboGlobal.removeAllItems();
+            for (String s : allAccountNames) debitComboGlobal.addItem(s);
+        }
+        if (creditComboGlobal != null) {
+            creditComboGlobal.removeAllItems();
+            for (String s : allAccountNames) creditComboGlobal.addItem(s);
+        }
+    }
+
+    private void refreshLedgerAccountCombo() {
+        if (ledgerAccountCombo == null) return;
+        ledgerAccountCombo.removeAllItems();
+        for (String s : getAllAccountNames()) ledgerAccountCombo.addItem(s);
+    }
+
+    // --- Virtual Table Models ---
+    // These read straight from the journal and format a cell only when JTable
+    // renders it, so opening a big book builds no row objects up front.
+
+    private class TransactionsTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+        private final String[] columns = {"Date", "Description", "Debit Account", "Credit Account", "Amount"};
+        // Search hits, newest first; null shows every transaction. These are
+        // SearchIndex ids, or journal indices while an archive is open.
+        private int[] matches;
+
+        public void setMatches(int[] matches) {
+            this.matches = matches;
+            fireTableDataChanged();
+        }
+
+        public void transactionAdded(int index, boolean matchesQuery) {
+            if (matches == null) {
+                int row = journalSource.size() - 1 - index; // newest first
+                fireTableRowsInserted(row, row);
+                return;
+            }
+            if (matchesQuery) insertMatch(engine.searchIndex().lastId());
+        }
+
+        // Ids never move, so only the new hit needs placing
+        public void insertMatch(int id) {
+            int lo = 0, hi = matches.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (engine.searchIndex().isAfter(matches[mid], id)) lo = mid + 1; else hi = mid;
+            }
+            int[] grown = new int[matches.length + 1];
+            System.arraycopy(matches, 0, grown, 0, lo);
+            grown[lo] = id;
+            System.arraycopy(matches, lo, grown, lo + 1, matches.length - lo);
+            matches = grown;
+            fireTableRowsInserted(lo, lo);
+        }
+
+        @Override public int getRowCount() { return matches == null ? journalSource.size() : matches.length; }
+        @Override public int getColumnCount() { return columns.length; }
+        @Override public String getColumnName(int c) { return columns[c]; }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            JournalEntry tx;
+            if (matches == null) tx = journalSource.entry(journalSource.size() - 1 - row);
+            else tx = archive != null ? journalSource.entry(matches[row]) : engine.searchIndex().transaction(matches[row]);
+            switch (col) {
+                case 0: return sdf.format(tx.getDate());
+                case 1: return tx.getDescription();
+                case 2: return tx.getDebitAccount();
+                case 3: return tx.getCreditAccount();
+                default: return formatCurrency(tx.getAmount());
+            }
+        }
+    }
+
+    // One row per line: the debit line then the credit line, or a compound entry's debits then credits
+    private class JournalTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+        private final String[] columns = {"Date", "Description", "Account", "Debit", "Credit"};
+
+        public void transactionAdded(int index) {
+            int first = journalSource.firstLine(index);
+            fireTableRowsInserted(first, first + journalSource.entry(index).lineCount() - 1);
+        }
+
+        @Override public int getRowCount() { return journalSource.lineCount(); }
+        @Override public int getColumnCount() { return columns.length; }
+        @Override public String getColumnName(int c) { return columns[c]; }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            int index = journalSource.entryOfLine(row);
+            int line = row - journalSource.firstLine(index);
+            JournalEntry tx = journalSource.entry(index);
+            long amount = tx.lineAmount(line);
+            switch (col) {
+                case 0: return sdf.format(tx.getDate());
+                case 1: return tx.getDescription();
+                case 2: return tx.lineAccount(line);
+                case 3: return amount > 0 ? formatCurrency(amount) : "";
+                default: return amount < 0 ? formatCurrency(-amount) : "";
+            }
+        }
+    }
+
+    // Reads the selected account's postings; running balances come precomputed
+    private class LedgerTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+        private final String[] columns = {"Date", "Description", "Debit Account", "Credit Account", "Amount", "Running Balance"};
+        private LedgerSource postings;
+        private Account account;
+
+        public void setAccount(Account account) {
+            this.account = account;
+            if (account == null) postings = null;
+            else postings = archive != null ? archive.postings(account) : engine.postings(account);
+            fireTableDataChanged();
+        }
+
+        public void transactionAdded(Transaction tx) {
+            if (postings == null) return;
+            int row = postings.indexOf(tx);
+            if (row < 0) return;
+            fireTableRowsInserted(row, row);
+            if (row < postings.size() - 1) {
+                // Backdated entry moves every later running balance
+                fireTableRowsUpdated(row + 1, postings.size() - 1);
+            }
+        }
+
+        @Override public int getRowCount() { return postings == null ? 0 : postings.size(); }
+        @Override public int getColumnCount() { return columns.length; }
+        @Override public String getColumnName(int c) { return columns[c]; }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            JournalEntry tx = postings.entry(row);
+            switch (col) {
+                case 0: return sdf.format(tx.getDate());
+                case 1: return tx.getDescription();
+                case 2: return tx.getDebitAccount();
+                case 3: return tx.getCreditAccount();
+                case 4: return formatCurrency(amountFor(tx));
+                default: return formatAccounting(postings.runningBalance(row));
+            }
+        }
+
+        // A compound entry shows only the selected account's part of it
+        private long amountFor(JournalEntry tx) {
+            if (tx.lineCount() == 2) return tx.getAmount();
+            long amount = 0L;
+            for (int line = 0, n = tx.lineCount(); line < n; line++) {
+                if (tx.lineAccount(line).equals(account.getName())) amount += tx.lineAmount(line);
+            }
+            return Math.abs(amount);
+        }
+    }
+    // --- End Virtual Table Models ---
+
+    // --- Change Events ---
+    // Posting reports what changed, so each view updates only the affected rows
+    // instead of going through a full refreshAllViews() rebuild. An entry fires
+    // accountBalanceChanged for each account it touched, then transactionAdded once.
+    private interface LedgerListener {
+        void transactionAdded(int index, Transaction tx);
+        void accountBalanceChanged(Account account);
+    }
+
+    private void fireTransactionAdded(int index, Transaction tx) {
+        for (LedgerListener l : ledgerListeners) l.transactionAdded(index, tx);
+    }
+
+    private void fireAccountBalanceChanged(Account account) {
+        for (LedgerListener l : ledgerListeners) l.accountBalanceChanged(account);
+    }
+
+    // Keeps the table models in step with postings by firing row events
+    // (fireTableRowsInserted/fireTableRowsUpdated) for just the touched rows.
+    // Sheet totals and labels are brought up to date once per entry, not per account.
+    private class ViewUpdater implements LedgerListener {
+        private boolean sheetDirty; // an account of the current entry moved
+
+        @Override
+        public void transactionAdded(int index, Transaction tx) {
+            if (transactionsTableModel != null) {
+                transactionsTableModel.transactionAdded(index, matchesQuery(tx, transactionsQuery));
+            }
+            if (journalTableModel != null) {
+                journalTableModel.transactionAdded(index);
+            }
+            if (ledgerTableModel != null) {
+                ledgerTableModel.transactionAdded(tx);
+            }
+
+            if (!sheetDirty) return;
+            sheetDirty = false;
+            if (balanceSheetAsOf != null) {
+                // A backdated posting can move any as-of balance; a later one moves none
+                if (JournalFile.toEpochDay(tx.getDate()) <= JournalFile.toEpochDay(balanceSheetAsOf)) refreshBalanceSheet();
+            } else if (liabilitiesTableModel != null && liabilitiesTableModel.getRowCount() > 0) {
+                liabilitiesTableModel.setValueAt(formatAccounting(calculateProprietorshipEquity(sheetTotals())),
+                        liabilitiesTableModel.getRowCount() - 1, 1);
+            }
+            runLabelUpdaters();
+        }
+
+        @Override
+        public void accountBalanceChanged(Account account) {
+            String balance = formatAccounting(account.getBalance());
+
+            int row = engine.accounts().indexOf(account);
+            if (row >= 0 && accountsTableModel != null) accountsTableModel.setValueAt(balance, row, 3);
+
+            Integer sheetRow = balanceSheetRows.get(account);
+            if (balanceSheetAsOf == null && sheetRow != null) {
+                DefaultTableModel model = account.getType().equals("Asset") ? assetsTableModel : liabilitiesTableModel;
+                model.setValueAt(balance, sheetRow, 1);
+            }
+            sheetDirty = true;
+        }
+    }
+    // --- End Change Events ---
+
+    // --- Refresh All Views ---
+
+    private void refreshAllViews() {
+        if (transactionsTableModel != null) {
+            filterTransactions("");
+        }
+        
+        refreshAccountsTable(); 
+
+        if (journalTableModel != null) {
+            journalTableModel.fireTableDataChanged();
+        }
+
+        refreshLedgerAccountCombo();
+        if (ledgerAccountCombo != null && ledgerAccountCombo.getItemCount() > 0) {
+            String sel = (String) ledgerAccountCombo.getSelectedItem();
+            if (sel == null) sel = ledgerAccountCombo.getItemAt(0);
+            ledgerAccountCombo.setSelectedItem(sel);
+            updateGeneralLedgerTable(sel);
+        }
+
+        refreshBalanceSheet();
+
+        refreshAccountCombos();
+
+        runLabelUpdaters();
+    }
+
+    // Empty text goes back to current balances
+    private void setBalanceSheetAsOf(String text) {
+        if (text.isEmpty()) {
+            balanceSheetAsOf = null;
+        } else {
+            try {
+                balanceSheetAsOf = sdf.parse(text);
+            } catch (ParseException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.");
+                return;
+            }
+        }
+        refreshBalanceSheet();
+        runLabelUpdaters();
+    }
+
+    private void refreshBalanceSheet() {
+        if (assetsTableModel == null || liabilitiesTableModel == null) return;
+        assetsTableModel.setRowCount(0);
+        liabilitiesTableModel.setRowCount(0);
+        balanceSheetRows.clear();
+        asOfBalances = balanceSheetAsOf == null ? null : balancesAt(balanceSheetAsOf);
+
+        for (Account a : engine.accounts()) {
+            if (a.getType().equals("Asset")) {
+                balanceSheetRows.put(a, assetsTableModel.getRowCount());
+                assetsTableModel.addRow(new Object[]{a.getName(), formatAccounting(sheetBalance(a))});
+            } else if (a.getType().equals("Liability")) {
+                balanceSheetRows.put(a, liabilitiesTableModel.getRowCount());
+                liabilitiesTableModel.addRow(new Object[]{a.getName(), formatAccounting(sheetBalance(a))});
+            }
+        }
+
+        long totalEquity = calculateProprietorshipEquity(sheetTotals());
+        liabilitiesTableModel.addRow(new Object[]{"", ""}); // Separator
+        liabilitiesTableModel.addRow(new Object[]{"Owner's Equity (Ending Balance)", formatAccounting(totalEquity)});
+    }
+
+    // run any UI label updaters (balance sheet totals)
+    private void runLabelUpdaters() {
+        if (mainTabbedPane == null) return;
+        for (int i = 0; i < mainTabbedPane.getTabCount(); i++) {
+            Component c = mainTabbedPane.getComponentAt(i);
+            if (c instanceof JPanel) {
+                Object prop = ((JPanel) c).getClientProperty("updateLabels");
+                if (prop instanceof Runnable) ((Runnable) prop).run();
+            }
+        }
+    }
+    // --- End Refresh All Views ---
+    
+    // --- Financial Calculations ---
+
+    // Balance the Balance Sheet shows: current, or as of balanceSheetAsOf
+    private long sheetBalance(Account a) {
+        return asOfBalances == null ? a.getBalance() : asOfBalances[engine.accounts().indexOf(a)];
+    }
+
+    /** Balance of account at the end of date; one binary search over its postings. */
+    private long balanceAt(Account account, Date date) {
+        if (archive != null) return archive.balancesAt(JournalFile.toEpochDay(date))[engine.accounts().indexOf(account)];
+        AccountPostings p = engine.postings(account);
+        return Money.add(p.openingBalance(), p.balanceAt(date));
+    }
+
+    /** Every account's balance at the end of date, by position in the registry. */
+    private long[] balancesAt(Date date) {
+        if (archive != null) return archive.balancesAt(JournalFile.toEpochDay(date));
+        AccountRegistry accounts = engine.accounts();
+        long[] balances = new long[accounts.size()];
+        for (int i = 0; i < balances.length; i++) balances[i] = balanceAt(accounts.get(i), date);
+        return balances;
+    }
+    
+    // Group totals the Balance Sheet shows: the running totals, or summed from asOfBalances
+    private long[] sheetTotals() {
+        if (asOfBalances == null) return engine.totals();
+        long[] totals = new long[BalanceGroup.values().length];
+        for (int i = 0; i < asOfBalances.length; i++) {
+            int g = engine.accounts().get(i).getGroup().ordinal();
+            totals[g] = Money.add(totals[g], asOfBalances[i]);
+        }
+        return totals;
+    }
+
+    private static long calculateProprietorshipEquity(long[] totals) {
+        long capital = totals[BalanceGroup.CAPITAL.ordinal()];
+        long drawing = totals[BalanceGroup.DRAWING.ordinal()];
+        long revenue = totals[BalanceGroup.REVENUE.ordinal()];
+        long expense = totals[BalanceGroup.EXPENSE.ordinal()];
+
+        long netIncome = Money.subtract(revenue, expense);
+        return Money.subtract(Money.add(capital, netIncome), drawing); 
+    }
+
+    private static long calculateTotalAssets(long[] totals) {
+        return totals[BalanceGroup.ASSETS.ordinal()];
+    }
+
+    private static long calculateTotalLiabilitiesAndEquity(long[] totals) {
+        long totalLiabilities = totals[BalanceGroup.LIABILITIES.ordinal()];
+        long totalEquity = calculateProprietorshipEquity(totals);
+        
+        return Money.add(totalLiabilities, totalEquity); 
+    }
+
+    // --- Main Method ---
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            try {
+                LedgerServer.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException | IllegalArgumentException ex) {
+                System.err.println("Could not start the server: " + ex.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--stress")) {
+            boolean passed = false;
+            try {
+                passed = LedgerStress.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IllegalArgumentException | InterruptedException ex) {
+                System.err.println("Could not run the stress check: " + ex.getMessage());
+            } catch (ExecutionException ex) {
+                System.err.println("Stress check failed:");
+                ex.getCause().printStackTrace();
+            }
+            System.exit(passed ? 0 : 1);
+        }
+
+        // Jframe_Icon fic = new Jframe_Icon();
+        // fic.setVisible(true);
+
+        SwingUtilities.invokeLater(() -> new AccountingApp());
+    }
+}
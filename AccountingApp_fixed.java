@@ -8,6 +8,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
+import java.util.Date;
 import java.text.NumberFormat;
 import java.util.logging.Logger;
 import java.sql.Connection;
@@ -15,6 +16,22 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /*
  Cleaned and fixed AccountingApp.java
@@ -178,6 +195,12 @@ public class AccountingApp extends JFrame {
     private JLabel totalAssetsLabel;
     private JLabel totalLiabLabel;
 
+    // Database backing, opened at startup (see openLedgerStore())
+    private LedgerStore store;
+    // Balances the Accounts tab and Balance Sheet show when the store is open, read once
+    // per refresh; null means the in-memory ones
+    private Map<String, Double> storedBalances;
+
     public AccountingApp() {
         setLayout(new BorderLayout());
         sdf.setLenient(false);
@@ -200,9 +223,16 @@ public class AccountingApp extends JFrame {
         setTitle("Accounting App");
         setSize(1000, 650);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeLedgerStore();
+            }
+        });
         setLocationRelativeTo(null);
         setVisible(true);
 
+        openLedgerStore();
         refreshAllViews();
     }
 
@@ -245,6 +275,7 @@ public class AccountingApp extends JFrame {
 
         menuBtn.addActionListener(e -> popup.show(menuBtn, 0, menuBtn.getHeight()));
         logoutItem.addActionListener(e -> {
+            closeLedgerStore();
             dispose();
             new LoginForm();
         });
@@ -270,30 +301,128 @@ private void openFolderAction() {
     int result = chooser.showOpenDialog(this);
     if (result == JFileChooser.APPROVE_OPTION) {
         File selectedDir = chooser.getSelectedFile();
-        JOptionPane.showMessageDialog(this, "Opened folder: " + selectedDir.getAbsolutePath());
-        // Optional: add logic to load CSV files from this folder
+        File[] files = selectedDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".csv"));
+        if (files == null || files.length == 0) {
+            JOptionPane.showMessageDialog(this, "No CSV files in " + selectedDir.getAbsolutePath());
+            return;
+        }
+        Arrays.sort(files);
+        importCsvFiles(files);
     }
 }
 
+    // Parses, checks and posts everything to the store off the EDT, and only then
+    // applies the whole import to the books with a single refresh. Any bad line or a
+    // failed post rejects the import, so the books never hold part of a folder.
+    private void importCsvFiles(File[] files) {
+        Map<String, Account> chart = new HashMap<>();
+        for (Account a : accounts) chart.put(a.getName(), a);
+        long start = System.nanoTime();
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        new SwingWorker<CsvImport, Void>() {
+            @Override
+            protected CsvImport doInBackground() throws Exception {
+                CsvImport result = CsvImport.read(files, chart.keySet());
+                if (result.errorCount == 0) ledgerStore().post(result.transactions);
+                return result;
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                CsvImport result;
+                try {
+                    result = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(AccountingApp.this, "Import failed: " + cause.getMessage());
+                    return;
+                }
+                if (result.errorCount > 0) {
+                    StringBuilder msg = new StringBuilder("Nothing was imported. " + result.errorCount + " problem line(s):\n");
+                    for (String e : result.errors) msg.append(e).append('\n');
+                    if (result.errorCount > result.errors.size()) msg.append("...");
+                    JOptionPane.showMessageDialog(AccountingApp.this, msg.toString(), "Import", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                for (Transaction tx : result.transactions) {
+                    chart.get(tx.getDebitAccount()).applyDebit(tx.getAmount());
+                    chart.get(tx.getCreditAccount()).applyCredit(tx.getAmount());
+                }
+                transactions.addAll(result.transactions);
+                transactions.sort(Comparator.comparing(Transaction::getDate));
+                refreshAllViews();
+
+                JOptionPane.showMessageDialog(AccountingApp.this, String.format("Imported %,d transactions from %d file(s) in %.1f s.",
+                        result.transactions.size(), files.length, (System.nanoTime() - start) / 1e9));
+            }
+        }.execute();
+    }
+
 private void saveCSVAction() {
+    String[] reports = {"Accounts", "Journal", "Ledgers", "Balance Sheet"};
+    Object report = JOptionPane.showInputDialog(this, "Export:", "Save CSV",
+            JOptionPane.QUESTION_MESSAGE, null, reports, reports[0]);
+    if (report == null) return;
     JFileChooser chooser = new JFileChooser();
-    chooser.setSelectedFile(new File("goods.csv"));
+    chooser.setSelectedFile(new File(report.toString().toLowerCase().replace(' ', '_') + ".csv"));
     int result = chooser.showSaveDialog(this);
     if (result == JFileChooser.APPROVE_OPTION) {
-        File file = chooser.getSelectedFile();
-        try (PrintWriter pw = new PrintWriter(file)) {
-            // Save all accounts as CSV
-            pw.println("Account Name,Type,Balance");
-            for (Account a : accounts) {
-                pw.println(a.getName() + "," + a.getType() + "," + a.getBalance());
-            }
-            JOptionPane.showMessageDialog(this, "CSV saved: " + file.getAbsolutePath());
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Error saving CSV: " + ex.getMessage());
-        }
+        exportCsv(report.toString(), chooser.getSelectedFile());
     }
 }
 
+    // Snapshots the books on the EDT, then streams the report from a worker with a
+    // cancellable progress monitor
+    private void exportCsv(String report, File file) {
+        Account[] accs = accounts.toArray(new Account[0]);
+        double[] balances = new double[accs.length];
+        for (int i = 0; i < accs.length; i++) balances[i] = accs[i].getBalance();
+        Transaction[] txs = transactions.toArray(new Transaction[0]);
+        double totalAssets = calculateTotalAssets();
+        double totalLiabilitiesAndEquity = calculateTotalLiabilitiesAndEquity();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting " + report + " to " + file.getName(), null, 0, 100);
+
+        SwingWorker<Long, Void> worker = new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws IOException {
+                try (CsvWriter out = new CsvWriter(file)) {
+                    CsvExport export = new CsvExport(out, accs, balances, txs, this::isCancelled, this::setProgress);
+                    switch (report) {
+                        case "Accounts": export.accounts(); break;
+                        case "Journal": export.journal(); break;
+                        case "Ledgers": export.ledgers(); break;
+                        default: export.balanceSheet(totalAssets, totalLiabilitiesAndEquity); break;
+                    }
+                    return out.bytesWritten();
+                }
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                if (isCancelled()) {
+                    JOptionPane.showMessageDialog(AccountingApp.this, "Export cancelled; " + file.getName() + " is incomplete.");
+                    return;
+                }
+                try {
+                    long bytes = get();
+                    JOptionPane.showMessageDialog(AccountingApp.this, String.format("CSV saved: %s (%,d bytes)", file.getAbsolutePath(), bytes));
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(AccountingApp.this, "Error saving CSV: " + cause.getMessage());
+                }
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) monitor.setProgress((Integer) e.getNewValue());
+            if (monitor.isCanceled()) worker.cancel(true);
+        });
+        worker.execute();
+    }
+
     private void showAbout() {
         JOptionPane.showMessageDialog(this,
             "Accounting System\n\n" +
@@ -309,33 +438,60 @@ private void saveCSVAction() {
     }
 
     // ===================== Domain classes =====================
+    // Normal balance side of each kind of account. A contra account is reported in
+    // its section but carries the opposite side, as Owner's Drawing does in equity.
+    private enum AccountClass {
+        ASSET(true, false),
+        LIABILITY(false, false),
+        EQUITY(false, false),
+        CONTRA_EQUITY(true, true),
+        REVENUE(false, false),
+        EXPENSE(true, false);
+
+        final boolean debitNormal;
+        final boolean contra;
+        final double debitSign;
+
+        AccountClass(boolean debitNormal, boolean contra) {
+            this.debitNormal = debitNormal;
+            this.contra = contra;
+            this.debitSign = debitNormal ? 1.0 : -1.0;
+        }
+
+        static AccountClass of(String name, String type) {
+            if (name.equals("Owner's Drawing")) return CONTRA_EQUITY;
+            switch (type) {
+                case "Asset": return ASSET;
+                case "Liability": return LIABILITY;
+                case "Revenue": return REVENUE;
+                case "Expense": return EXPENSE;
+                default: return EQUITY;
+            }
+        }
+    }
+
     private static class Account {
         private String name;
         private String type;
         private double balance;
+        private final AccountClass accountClass;
 
         public Account(String name, String type, double initialBalance) {
             this.name = name;
             this.type = type;
             this.balance = initialBalance;
+            this.accountClass = AccountClass.of(name, type);
         }
         public String getName() { return name; }
         public String getType() { return type; }
         public double getBalance() { return balance; }
+        public AccountClass getAccountClass() { return accountClass; }
 
         public void applyDebit(double amount) {
-            if (type.equals("Asset") || type.equals("Expense")) {
-                balance += amount;
-            } else {
-                balance -= amount;
-            }
+            balance += accountClass.debitSign * amount;
         }
         public void applyCredit(double amount) {
-            if (type.equals("Liability") || type.equals("Owner's Equity") || type.equals("Revenue")) {
-                balance += amount;
-            } else {
-                balance -= amount;
-            }
+            balance -= accountClass.debitSign * amount;
         }
     }
 
@@ -397,18 +553,77 @@ private void saveCSVAction() {
             accounts.add(new Account(acc[0], acc[1], Double.parseDouble(acc[2])));
         }
     }
-    public void addAccount(String name, String type, double balance) {
-    try {
-        String sql = "INSERT INTO accounts (name, type, balance) VALUES (?, ?, ?)";
-        PreparedStatement ps = db.getConnection().prepareStatement(sql);
-        ps.setString(1, name);
-        ps.setString(2, type);
-        ps.setDouble(3, balance);
-        ps.executeUpdate();
-        ps.close();
-    } catch (SQLException e) {
-        JOptionPane.showMessageDialog(null, "Error adding account: " + e.getMessage());
+    // Stores the account first and adds it to the books only once that succeeds
+    public boolean addAccount(String name, String type, double balance) {
+        try {
+            ledgerStore().addAccount(name, type, balance);
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Error adding account: " + e.getMessage());
+            return false;
+        }
+        accounts.add(new Account(name, type, balance));
+        refreshAllViews();
+        return true;
     }
+
+    // Adds any predefined account the database lacks, then loads the stored chart and
+    // postings, so the books start out as the database has them. Without a database
+    // the predefined chart stays in memory and postings are refused until one opens.
+    private void openLedgerStore() {
+        try {
+            LedgerStore s = ledgerStore();
+            s.addMissingAccounts(accounts);
+            List<Account> chart = s.accounts();
+            List<Transaction> journal = s.journal();
+            accounts.clear();
+            accounts.addAll(chart);
+            transactions.clear();
+            transactions.addAll(journal);
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Could not open the database: " + e.getMessage());
+        }
+    }
+
+    // The MySQL server when it is reachable, otherwise the embedded store in the user's home.
+    // Only a failure to connect falls back: any other error, such as a failed upgrade on a
+    // reachable server, is reported instead, so postings never split across two databases.
+    // Synchronized because import workers call it as well as the EDT.
+    private synchronized LedgerStore ledgerStore() throws SQLException {
+        if (store == null) {
+            String active;
+            String note = null;
+            try {
+                store = new DatabaseManagerMySQL();
+                active = "MySQL";
+            } catch (SQLException e) {
+                if (!isConnectionFailure(e)) throw e;
+                File local = new File(System.getProperty("user.home"), "accounting_db.sqlite");
+                store = new EmbeddedLedgerStore(local);
+                active = "local database";
+                note = "Could not connect to the MySQL server (" + e.getMessage() + ").\n"
+                        + "Postings are saved to the local database " + local.getAbsolutePath() + " instead.";
+            }
+            final String title = "Accounting App - " + active;
+            final String message = note;
+            SwingUtilities.invokeLater(() -> {
+                setTitle(title);
+                if (message != null) JOptionPane.showMessageDialog(this, message, "Local Database", JOptionPane.INFORMATION_MESSAGE);
+            });
+        }
+        return store;
+    }
+
+    // SQLState class 08 is a connection exception; DriverManager reports a missing driver as 08001
+    private static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    private synchronized void closeLedgerStore() {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
     }
 
     // ===================== Panels =====================
@@ -491,15 +706,7 @@ private void saveCSVAction() {
                 return;
             }
 
-            // Apply changes
-            debitAcc.applyDebit(amount);
-            creditAcc.applyCredit(amount);
-
-            Transaction tx = new Transaction(date, desc, debitAccName, creditAccName, amount);
-            transactions.add(tx);
-            transactions.sort(Comparator.comparing(Transaction::getDate));
-
-            refreshAllViews();
+            if (!addTransaction(date, desc, debitAccName, creditAccName, amount)) return;
 
             JOptionPane.showMessageDialog(this, "Transaction posted.");
             dateField.setText(sdf.format(new Date()));
@@ -549,7 +756,7 @@ private void saveCSVAction() {
     }
 
     private void filterTransactions(String query) {
-        transactionsTableModel.setRowCount(0);
+        List<Object[]> rows = new ArrayList<>();
         for (int i = transactions.size()-1; i >= 0; i--) {
             Transaction tx = transactions.get(i);
             String dateStr = sdf.format(tx.getDate());
@@ -558,7 +765,7 @@ private void saveCSVAction() {
                     || tx.getDescription().toLowerCase().contains(query)
                     || tx.getDebitAccount().toLowerCase().contains(query)
                     || tx.getCreditAccount().toLowerCase().contains(query)) {
-                transactionsTableModel.addRow(new Object[]{
+                rows.add(new Object[]{
                         dateStr,
                         tx.getDescription(),
                         tx.getDebitAccount(),
@@ -567,6 +774,16 @@ private void saveCSVAction() {
                 });
             }
         }
+        replaceRows(transactionsTableModel, rows);
+    }
+
+    // One table event for the whole set; addRow per row re-sorts a sorted table every time
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void replaceRows(DefaultTableModel model, List<Object[]> rows) {
+        Vector data = model.getDataVector();
+        data.clear();
+        for (Object[] row : rows) data.add(new Vector<>(Arrays.asList(row)));
+        model.fireTableDataChanged();
     }
 
     private JPanel createAccountsPanel() {
@@ -618,8 +835,7 @@ private void saveCSVAction() {
                     return;
                 }
             }
-            accounts.add(new Account(name, type, initBal));
-            refreshAllViews();
+            if (!addAccount(name, type, initBal)) return;
             nameField.setText("");
             balanceField.setText("");
             typeCombo.setSelectedIndex(0);
@@ -677,7 +893,6 @@ private void saveCSVAction() {
         assetsTableModel = new DefaultTableModel(assetCols, 0) {
             @Override
             public boolean isCellEditable(int r, int c) { return false; }
-        }
         };
         JTable assetsTable = new JTable(assetsTableModel);
         assetsTable.setAutoCreateRowSorter(true);
@@ -781,89 +996,81 @@ private void saveCSVAction() {
         ledgerTableModel.setRowCount(0);
         Account acc = getAccountByName(accountName);
         if (acc == null) return;
+        if (store != null) {
+            updateStoredLedgerTable(accountName);
+            return;
+        }
 
         double running = 0.0;
+        double debitSign = acc.getAccountClass().debitSign;
+        List<Object[]> rows = new ArrayList<>();
         for (Transaction tx : transactions) {
             double amount = tx.getAmount();
             String dateStr = sdf.format(tx.getDate());
             boolean added = false;
             if (tx.getDebitAccount().equals(accountName)) {
-                if (acc.getType().equals("Asset") || acc.getType().equals("Expense")) {
-                    running += amount;
-                } else {
-                    running -= amount;
-                }
-                ledgerTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
+                running += debitSign * amount;
+                rows.add(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
                         formatAccounting(amount),
                         formatAccounting(running)});
                 added = true;
             }
             if (tx.getCreditAccount().equals(accountName)) {
-                if (acc.getType().equals("Liability") || acc.getType().equals("Owner's Equity") || acc.getType().equals("Revenue")) {
-                    running += amount;
-                } else {
-                    running -= amount;
-                }
-                ledgerTableModel.addRow(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
+                running -= debitSign * amount;
+                rows.add(new Object[]{dateStr, tx.getDescription(), tx.getDebitAccount(), tx.getCreditAccount(),
                         formatAccounting(amount),
                         formatAccounting(running)});
                 added = true;
             }
             // If no direct debit/credit on this account, skip
         }
+        replaceRows(ledgerTableModel, rows);
     }
-    public void addTransaction(Date date, String desc, String debit, String credit, double amount) {
-    try {
-        String sql = "INSERT INTO transactions (tx_date, description, debit_account, credit_account, amount) VALUES (?, ?, ?, ?, ?)";
-        PreparedStatement ps = db.getConnection().prepareStatement(sql);
-        ps.setDate(1, new java.sql.Date(date.getTime()));
-        ps.setString(2, desc);
-        ps.setString(3, debit);
-        ps.setString(4, credit);
-        ps.setDouble(5, amount);
-        ps.executeUpdate();
-        ps.close();
-
-        // Update balances
-        updateAccountBalance(debit, amount, true);
-        updateAccountBalance(credit, amount, false);
-
-    } catch (SQLException e) {
-        JOptionPane.showMessageDialog(null, "Error adding transaction: " + e.getMessage());
+    // Same rows from the database: two index-range reads instead of a pass over every transaction
+    private void updateStoredLedgerTable(String accountName) {
+        List<Object[]> rows = new ArrayList<>();
+        try {
+            store.ledger(accountName, null, null, (date, desc, debit, credit, amount, running) ->
+                    rows.add(new Object[]{sdf.format(date), desc, debit, credit,
+                            formatAccounting(amount),
+                            formatAccounting(running)}));
+            replaceRows(ledgerTableModel, rows);
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Error reading ledger: " + e.getMessage());
+        }
     }
-}
 
-private void updateAccountBalance(String accName, double amount, boolean isDebit) throws SQLException {
-    String getTypeSQL = "SELECT type, balance FROM accounts WHERE name=?";
-    PreparedStatement ps = db.getConnection().prepareStatement(getTypeSQL);
-    ps.setString(1, accName);
-    ResultSet rs = ps.executeQuery();
-    if (rs.next()) {
-        String type = rs.getString("type");
-        double balance = rs.getDouble("balance");
-
-        if (isDebit) {
-            if (type.equals("Asset") || type.equals("Expense")) balance += amount;
-            else balance -= amount;
-        } else {
-            if (type.equals("Liability") || type.equals("Owner's Equity") || type.equals("Revenue")) balance += amount;
-            else balance -= amount;
-        }
-
-        String updateSQL = "UPDATE accounts SET balance=? WHERE name=?";
-        PreparedStatement ups = db.getConnection().prepareStatement(updateSQL);
-        ups.setDouble(1, balance);
-        ups.setString(2, accName);
-        ups.executeUpdate();
-        ups.close();
+    public boolean addTransaction(Date date, String desc, String debit, String credit, double amount) {
+        return addTransactions(Collections.singletonList(new Transaction(date, desc, debit, credit, amount)));
     }
-    rs.close();
-    ps.close();
+
+    // Posts all of them in one DB transaction and applies them to the books once it
+    // commits; if any fails, none is written or applied
+    public boolean addTransactions(List<Transaction> txs) {
+        try {
+            ledgerStore().post(txs);
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Error adding transaction: " + e.getMessage());
+            return false;
+        }
+        for (Transaction tx : txs) {
+            getAccountByName(tx.getDebitAccount()).applyDebit(tx.getAmount());
+            getAccountByName(tx.getCreditAccount()).applyCredit(tx.getAmount());
+        }
+        transactions.addAll(txs);
+        transactions.sort(Comparator.comparing(Transaction::getDate));
+        refreshAllViews();
+        return true;
+    }
+
+    private double sheetBalance(Account a) {
+        Double stored = storedBalances == null ? null : storedBalances.get(a.getName());
+        return stored != null ? stored : a.getBalance();
     }
 
     private double calculateTotalAssets() {
         double sum = 0;
-        for (Account a : accounts) if (a.getType().equals("Asset")) sum += a.getBalance();
+        for (Account a : accounts) if (a.getType().equals("Asset")) sum += sheetBalance(a);
         return sum;
     }
 
@@ -877,19 +1084,19 @@ private void updateAccountBalance(String accName, double amount, boolean isDebit
         for (Account a : accounts) {
             switch (a.getType()) {
                 case "Liability":
-                    total += a.getBalance();
+                    total += sheetBalance(a);
                     break;
                 case "Owner's Equity":
                     if (a.getName().equals("Owner's Capital"))
-                        capital += a.getBalance();
+                        capital += sheetBalance(a);
                     else if (a.getName().equals("Owner's Drawing"))
-                        drawing += a.getBalance();
+                        drawing += sheetBalance(a);
                     break;
                 case "Revenue":
-                    revenue += a.getBalance();
+                    revenue += sheetBalance(a);
                     break;
                 case "Expense":
-                    expense += a.getBalance();
+                    expense += sheetBalance(a);
                     break;
             }
         }
@@ -901,6 +1108,16 @@ private void updateAccountBalance(String accName, double amount, boolean isDebit
     }
 
     private void refreshAllViews() {
+        // Every posting reaches the store before the books, so its balances are never behind them
+        storedBalances = null;
+        if (store != null) {
+            try {
+                storedBalances = store.balancesAt(null);
+            } catch (SQLException e) {
+                JOptionPane.showMessageDialog(this, "Error reading balances: " + e.getMessage());
+            }
+        }
+
         // Transactions tab
         if (transactionsTableModel != null) {
             filterTransactions("");
@@ -910,25 +1127,26 @@ private void updateAccountBalance(String accName, double amount, boolean isDebit
         if (accountsTableModel != null) {
             accountsTableModel.setRowCount(0);
             for (Account a : accounts) {
-                accountsTableModel.addRow(new Object[]{a.getName(), a.getType(), formatAccounting(a.getBalance())});
+                accountsTableModel.addRow(new Object[]{a.getName(), a.getType(), formatAccounting(sheetBalance(a))});
             }
         }
 
         // Journal
         if (journalTableModel != null) {
-            journalTableModel.setRowCount(0);
+            List<Object[]> rows = new ArrayList<>(transactions.size() * 2);
             for (Transaction tx : transactions) {
                 String dateStr = sdf.format(tx.getDate());
                 // debit row
-                journalTableModel.addRow(new Object[]{
+                rows.add(new Object[]{
                         dateStr, tx.getDescription(), tx.getDebitAccount(),
                         formatAccounting(tx.getAmount()), ""
                 });
-                journalTableModel.addRow(new Object[]{
+                rows.add(new Object[]{
                         dateStr, tx.getDescription(), tx.getCreditAccount(),
                         "", formatAccounting(tx.getAmount())
                 });
             }
+            replaceRows(journalTableModel, rows);
         }
 
         // Ledger combos and table
@@ -946,9 +1164,9 @@ private void updateAccountBalance(String accName, double amount, boolean isDebit
             liabilitiesTableModel.setRowCount(0);
             for (Account a : accounts) {
                 if (a.getType().equals("Asset")) {
-                    assetsTableModel.addRow(new Object[]{a.getName(), formatAccounting(a.getBalance())});
+                    assetsTableModel.addRow(new Object[]{a.getName(), formatAccounting(sheetBalance(a))});
                 } else if (a.getType().equals("Liability") || a.getType().equals("Owner's Equity")) {
-                    liabilitiesTableModel.addRow(new Object[]{a.getName(), formatAccounting(a.getBalance())});
+                    liabilitiesTableModel.addRow(new Object[]{a.getName(), formatAccounting(sheetBalance(a))});
                 }
             }
         }
@@ -970,31 +1188,1062 @@ private void updateAccountBalance(String accName, double amount, boolean isDebit
         }
     }
 
-    // ===================== DatabaseManager (optional) =====================
-    // Note: this uses in-memory SQLite. You must add sqlite-jdbc jar to classpath for DB features.
-public class DatabaseManagerMySQL {
-    private Connection conn;
+    // ===================== CSV import =====================
+    // One posting per line: date (YYYY-MM-DD), description, debit account, credit
+    // account, amount. A first line that does not start with a date is a header; a
+    // field in double quotes may hold commas and "" for a quote. Each file is mapped
+    // and cut at line breaks into chunks that are parsed in parallel.
+    private static class CsvImport {
+        static final int CHUNK_BYTES = 4 << 20;
+        static final int MAX_REPORTED = 20;
+
+        final List<Transaction> transactions = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int errorCount;
+
+        // A byte range of one file; firstLine is filled in once earlier chunks are counted
+        private static class Chunk {
+            final File file;
+            final long start;
+            final int length;
+            final boolean fileStart;
+            final List<Transaction> parsed = new ArrayList<>();
+            final List<Integer> badLines = new ArrayList<>(); // line numbers within the chunk
+            final List<String> problems = new ArrayList<>();  // what is wrong with each of them
+            final Map<String, Date> days = new HashMap<>();    // statements repeat a few hundred dates
+            int lines;
+
+            Chunk(File file, long start, int length) {
+                this.file = file;
+                this.start = start;
+                this.length = length;
+                this.fileStart = start == 0;
+            }
+        }
 
-    public DatabaseManagerMySQL() {
-        String url = "jdbc:mysql://localhost:3306/accounting_db"; // database name
-        String user = "root"; // imong MySQL user
-        String pass = "your_password"; // imong password
+        static CsvImport read(File[] files, Set<String> accountNames) throws IOException {
+            List<Chunk> chunks = new ArrayList<>();
+            for (File f : files) split(f, chunks);
+            IntStream.range(0, chunks.size()).parallel().forEach(i -> parse(chunks.get(i), accountNames));
+
+            CsvImport result = new CsvImport();
+            int lineBase = 0;
+            for (Chunk c : chunks) {
+                if (c.fileStart) lineBase = 0;
+                result.transactions.addAll(c.parsed);
+                for (int i = 0; i < c.badLines.size(); i++) {
+                    if (result.errors.size() < MAX_REPORTED) {
+                        result.errors.add(c.file.getName() + ":" + (lineBase + c.badLines.get(i)) + ": " + c.problems.get(i));
+                    }
+                    result.errorCount++;
+                }
+                lineBase += c.lines;
+            }
+            return result;
+        }
 
-        try {
-            conn = DriverManager.getConnection(url, user, pass);
-            createTables(); // auto-create kung wala pa
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(null, "Database connection failed: " + e.getMessage());
-            e.printStackTrace();
+        // Cuts the file into chunks of about CHUNK_BYTES that end at a line break
+        private static void split(File f, List<Chunk> chunks) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+                long size = raf.length();
+                long start = 0;
+                while (start < size) {
+                    long end = Math.min(size, start + CHUNK_BYTES);
+                    if (end < size) {
+                        raf.seek(end);
+                        int b;
+                        while ((b = raf.read()) != -1 && b != '\n') end++;
+                        end = Math.min(size, end + 1);
+                    }
+                    chunks.add(new Chunk(f, start, (int) (end - start)));
+                    start = end;
+                }
+            }
+        }
+
+        private static void parse(Chunk c, Set<String> accountNames) {
+            String text;
+            try (FileChannel ch = new RandomAccessFile(c.file, "r").getChannel()) {
+                ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, c.start, c.length);
+                byte[] bytes = new byte[c.length];
+                buf.get(bytes);
+                text = new String(bytes, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                c.badLines.add(1);
+                c.problems.add("cannot read: " + e.getMessage());
+                return;
+            }
+
+            List<String> fields = new ArrayList<>(5);
+            int pos = 0;
+            while (pos < text.length()) {
+                int nl = text.indexOf('\n', pos);
+                int end = nl < 0 ? text.length() : nl;
+                int lineEnd = end > pos && text.charAt(end - 1) == '\r' ? end - 1 : end;
+                c.lines++;
+                if (lineEnd > pos) {
+                    String problem = parseLine(text, pos, lineEnd, fields, c, accountNames);
+                    if (problem != null) {
+                        c.badLines.add(c.lines);
+                        c.problems.add(problem);
+                    }
+                }
+                pos = end + 1;
+            }
+        }
+
+        // Adds the posting on the line to c, or returns what is wrong with it
+        private static String parseLine(String text, int from, int to, List<String> fields, Chunk c, Set<String> accountNames) {
+            splitFields(text, from, to, fields);
+            if (c.fileStart && c.lines == 1 && !startsWithDate(fields)) return null; // header
+            if (fields.size() != 5) return "expected 5 fields, found " + fields.size();
+
+            String dayText = fields.get(0).trim();
+            Date date = c.days.get(dayText);
+            if (date == null) {
+                try {
+                    date = Date.from(LocalDate.parse(dayText).atStartOfDay(ZoneId.systemDefault()).toInstant());
+                } catch (DateTimeParseException e) {
+                    return "invalid date \"" + fields.get(0) + "\"";
+                }
+                c.days.put(dayText, date);
+            }
+            String debit = fields.get(2).trim();
+            String credit = fields.get(3).trim();
+            if (!accountNames.contains(debit)) return "unknown account \"" + debit + "\"";
+            if (!accountNames.contains(credit)) return "unknown account \"" + credit + "\"";
+            if (debit.equals(credit)) return "debit and credit accounts are the same";
+            double amount;
+            try {
+                amount = Double.parseDouble(fields.get(4).trim());
+            } catch (NumberFormatException e) {
+                return "invalid amount \"" + fields.get(4) + "\"";
+            }
+            if (!(amount > 0) || Double.isInfinite(amount)) return "amount must be greater than zero";
+
+            c.parsed.add(new Transaction(date, fields.get(1).trim(), debit, credit, amount));
+            return null;
+        }
+
+        private static boolean startsWithDate(List<String> fields) {
+            try {
+                LocalDate.parse(fields.get(0).trim());
+                return true;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+
+        private static void splitFields(String text, int from, int to, List<String> out) {
+            out.clear();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = from; i < to; i++) {
+                char ch = text.charAt(i);
+                if (quoted) {
+                    if (ch == '"') {
+                        if (i + 1 < to && text.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    out.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(ch);
+                }
+            }
+            out.add(field.toString());
+        }
+    }
+
+    // ===================== CSV export =====================
+    // Encodes fields straight into a 1 MB buffer that is drained to the file channel.
+    // Amounts are written as cent digits and dates come from a one-day cache, so a row
+    // allocates nothing (bar non-ASCII text) and memory stays flat for any export size.
+    private static class CsvWriter implements Closeable {
+        private final FileChannel channel;
+        private final byte[] buf = new byte[1 << 20];
+        private final ByteBuffer view = ByteBuffer.wrap(buf);
+        private int pos;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        private final byte[] digits = new byte[20];
+        private long cachedDay = Long.MIN_VALUE;
+        private byte[] cachedDate;
+        private boolean rowStarted;
+        private long written;
+
+        CsvWriter(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        CsvWriter text(String s) throws IOException {
+            separator();
+            boolean quote = false;
+            for (int i = 0; i < s.length() && !quote; i++) {
+                char c = s.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (2 * s.length() + 2 > buf.length) {
+                put((quote ? '"' + s.replace("\"", "\"\"") + '"' : s).getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            reserve(2 * s.length() + 2);
+            if (quote) buf[pos++] = '"';
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    String rest = s.substring(i);
+                    put((quote ? rest.replace("\"", "\"\"") : rest).getBytes(StandardCharsets.UTF_8));
+                    reserve(1);
+                    break;
+                }
+                if (c == '"') buf[pos++] = '"';
+                buf[pos++] = (byte) c;
+            }
+            if (quote) buf[pos++] = '"';
+            return this;
+        }
+
+        // Two decimals, no grouping; negative amounts get a leading minus
+        CsvWriter amount(double value) throws IOException {
+            separator();
+            long cents = Math.round(value * 100);
+            reserve(digits.length + 2);
+            if (cents < 0) {
+                buf[pos++] = '-';
+                cents = -cents;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + cents % 10);
+                cents /= 10;
+            } while (cents > 0 || n < 3);
+            while (n > 2) buf[pos++] = digits[--n];
+            buf[pos++] = '.';
+            buf[pos++] = digits[1];
+            buf[pos++] = digits[0];
+            return this;
+        }
+
+        CsvWriter date(Date date) throws IOException {
+            separator();
+            if (date.getTime() != cachedDay) {
+                cachedDay = date.getTime();
+                cachedDate = dateFormat.format(date).getBytes(StandardCharsets.US_ASCII);
+            }
+            put(cachedDate);
+            return this;
+        }
+
+        CsvWriter empty() throws IOException {
+            separator();
+            return this;
+        }
+
+        void endRow() throws IOException {
+            reserve(1);
+            buf[pos++] = '\n';
+            rowStarted = false;
+        }
+
+        long bytesWritten() {
+            return written + pos;
+        }
+
+        private void separator() throws IOException {
+            if (rowStarted) {
+                reserve(1);
+                buf[pos++] = ',';
+            }
+            rowStarted = true;
+        }
+
+        // Makes room for n more bytes; callers keep n within the buffer
+        private void reserve(int n) throws IOException {
+            if (pos + n > buf.length) drain();
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            for (int off = 0; off < bytes.length; ) {
+                if (pos == buf.length) drain();
+                int len = Math.min(bytes.length - off, buf.length - pos);
+                System.arraycopy(bytes, off, buf, pos, len);
+                pos += len;
+                off += len;
+            }
+        }
+
+        private void drain() throws IOException {
+            view.limit(pos).position(0);
+            while (view.hasRemaining()) written += channel.write(view);
+            pos = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
         }
     }
 
-    private void createTables() throws SQLException {
+    // The four reports, written from snapshots so the books can change meanwhile
+    private static class CsvExport {
+        static final int PROGRESS_EVERY = 1 << 16;
+
+        private final CsvWriter out;
+        private final Account[] accounts;
+        private final double[] balances;
+        private final Transaction[] txs;
+        private final BooleanSupplier cancelled;
+        private final IntConsumer progress;
+
+        CsvExport(CsvWriter out, Account[] accounts, double[] balances, Transaction[] txs, BooleanSupplier cancelled, IntConsumer progress) {
+            this.out = out;
+            this.accounts = accounts;
+            this.balances = balances;
+            this.txs = txs;
+            this.cancelled = cancelled;
+            this.progress = progress;
+        }
+
+        void accounts() throws IOException {
+            out.text("Account Name").text("Type").text("Balance").endRow();
+            for (int i = 0; i < accounts.length; i++) {
+                out.text(accounts[i].getName()).text(accounts[i].getType()).amount(balances[i]).endRow();
+            }
+        }
+
+        void journal() throws IOException {
+            out.text("Date").text("Description").text("Account").text("Debit").text("Credit").endRow();
+            for (int i = 0; i < txs.length; i++) {
+                Transaction tx = txs[i];
+                out.date(tx.getDate()).text(tx.getDescription()).text(tx.getDebitAccount()).amount(tx.getAmount()).empty().endRow();
+                out.date(tx.getDate()).text(tx.getDescription()).text(tx.getCreditAccount()).empty().amount(tx.getAmount()).endRow();
+                if (i % PROGRESS_EVERY == 0) step(i, txs.length);
+            }
+        }
+
+        // Every account's ledger in turn, running balance from zero as on the General Ledger tab.
+        // One pass buckets each account's transaction indexes (counts, then offsets into
+        // a single array), so writing a ledger only visits that account's own rows.
+        void ledgers() throws IOException {
+            out.text("Account").text("Date").text("Description").text("Debit Account").text("Credit Account")
+                    .text("Amount").text("Running Balance").endRow();
+            Map<String, Integer> index = new HashMap<>();
+            for (int a = 0; a < accounts.length; a++) index.putIfAbsent(accounts[a].getName(), a);
+            int[] debitOf = new int[txs.length];
+            int[] creditOf = new int[txs.length];
+            int[] start = new int[accounts.length + 1];
+            long done = 0;
+            long total = 4L * txs.length; // two bucketing passes, then about two rows per transaction
+            for (int i = 0; i < txs.length; i++) {
+                int d = index.getOrDefault(txs[i].getDebitAccount(), -1);
+                int c = index.getOrDefault(txs[i].getCreditAccount(), -1);
+                debitOf[i] = d;
+                creditOf[i] = c;
+                if (d >= 0) start[d + 1]++;
+                if (c >= 0 && c != d) start[c + 1]++;
+                if (++done % PROGRESS_EVERY == 0) step(done, total);
+            }
+            for (int a = 0; a < accounts.length; a++) start[a + 1] += start[a];
+            int[] rows = new int[start[accounts.length]];
+            int[] next = Arrays.copyOf(start, accounts.length);
+            for (int i = 0; i < txs.length; i++) {
+                int d = debitOf[i], c = creditOf[i];
+                if (d >= 0) rows[next[d]++] = i;
+                if (c >= 0 && c != d) rows[next[c]++] = i;
+                if (++done % PROGRESS_EVERY == 0) step(done, total);
+            }
+
+            for (int a = 0; a < accounts.length; a++) {
+                String name = accounts[a].getName();
+                double debitSign = accounts[a].getAccountClass().debitSign;
+                double running = 0.0;
+                for (int r = start[a]; r < start[a + 1]; r++) {
+                    int i = rows[r];
+                    Transaction tx = txs[i];
+                    if (debitOf[i] == a) running += debitSign * tx.getAmount();
+                    if (creditOf[i] == a) running -= debitSign * tx.getAmount();
+                    out.text(name).date(tx.getDate()).text(tx.getDescription()).text(tx.getDebitAccount())
+                            .text(tx.getCreditAccount()).amount(tx.getAmount()).amount(running).endRow();
+                    if (++done % PROGRESS_EVERY == 0) step(done, total);
+                }
+            }
+        }
+
+        void balanceSheet(double totalAssets, double totalLiabilitiesAndEquity) throws IOException {
+            out.text("Section").text("Account").text("Amount").endRow();
+            for (int i = 0; i < accounts.length; i++) {
+                if (accounts[i].getType().equals("Asset")) out.text("Assets").text(accounts[i].getName()).amount(balances[i]).endRow();
+            }
+            out.text("Assets").text("Total Assets").amount(totalAssets).endRow();
+            for (int i = 0; i < accounts.length; i++) {
+                String type = accounts[i].getType();
+                if (type.equals("Liability") || type.equals("Owner's Equity")) {
+                    out.text("Liabilities and Equity").text(accounts[i].getName()).amount(balances[i]).endRow();
+                }
+            }
+            out.text("Liabilities and Equity").text("Total Liabilities and Equity").amount(totalLiabilitiesAndEquity).endRow();
+        }
+
+        private void step(long done, long total) throws IOException {
+            if (cancelled.getAsBoolean()) throw new InterruptedIOException("Export cancelled");
+            progress.accept((int) (done * 100 / Math.max(1, total)));
+        }
+    }
+
+    // ===================== Batched posting =====================
+    // Queues postings and writes them at commit, in one DB transaction, on statements
+    // the connection prepared once. Balance changes and the per-day summary are summed
+    // per account (balance = balance + ?); rows go out as multi-row INSERTs in JDBC
+    // batches.
+    private static class PostingBatch {
+        static final int ROWS_PER_INSERT = 100;
+        static final int INSERTS_PER_BATCH = 10;
+        static final String ADD_BALANCE = "UPDATE accounts SET balance = balance + ? WHERE id = ?";
+
+        private final Connection conn;
+        private final PreparedStatement insertRows;
+        private final PreparedStatement insertRow;
+        private final PreparedStatement addBalance;
+        private final PreparedStatement addDaily;
+        private final boolean autoCommit;
+        private final List<Transaction> rows = new ArrayList<>();
+        private int[] rowAccountIds = new int[2 * ROWS_PER_INSERT]; // debit, credit id per row
+        // Sorted by account id; see commit() for why the order matters
+        private final Map<Integer, Double> balanceDeltas = new TreeMap<>();
+        private final Map<Long, Double> dailyDeltas = new TreeMap<>(); // key: account id << 32 | epoch day
+
+        PostingBatch(PooledConnection pc, String upsertDailySql) throws SQLException {
+            conn = pc.getConnection();
+            insertRows = pc.prepare(insertSql(ROWS_PER_INSERT));
+            insertRow = pc.prepare(insertSql(1));
+            addBalance = pc.prepare(ADD_BALANCE);
+            addDaily = pc.prepare(upsertDailySql);
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+        }
+
+        static String insertSql(int rowCount) {
+            StringBuilder sql = new StringBuilder("INSERT INTO transactions (tx_date, description, debit_account_id, credit_account_id, amount) VALUES ");
+            for (int i = 0; i < rowCount; i++) sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+            return sql.toString();
+        }
+
+        void add(Transaction tx, StoredAccount debit, StoredAccount credit) {
+            double amount = tx.getAmount();
+            long day = new java.sql.Date(tx.getDate().getTime()).toLocalDate().toEpochDay();
+            addDelta(debit.id, day, debit.debitSign * amount);
+            addDelta(credit.id, day, -credit.debitSign * amount);
+
+            int i = 2 * rows.size();
+            if (i == rowAccountIds.length) rowAccountIds = Arrays.copyOf(rowAccountIds, 2 * i);
+            rowAccountIds[i] = debit.id;
+            rowAccountIds[i + 1] = credit.id;
+            rows.add(tx);
+        }
+
+        private void addDelta(int accountId, long epochDay, double delta) {
+            balanceDeltas.merge(accountId, delta, Double::sum);
+            dailyDeltas.merge(((long) accountId << 32) | (epochDay & 0xFFFFFFFFL), delta, Double::sum);
+        }
+
+        private void bind(PreparedStatement ps, int offset, int row) throws SQLException {
+            Transaction tx = rows.get(row);
+            ps.setDate(offset + 1, new java.sql.Date(tx.getDate().getTime()));
+            ps.setString(offset + 2, tx.getDescription());
+            ps.setInt(offset + 3, rowAccountIds[2 * row]);
+            ps.setInt(offset + 4, rowAccountIds[2 * row + 1]);
+            ps.setDouble(offset + 5, tx.getAmount());
+        }
+
+        // The balance updates run first, in account id order. On InnoDB each INSERT into
+        // transactions takes shared locks on the account rows its foreign keys point at;
+        // inserting first would leave two batches holding shared locks and both waiting
+        // to upgrade them, a deadlock. Taking the exclusive row locks up front, in one
+        // order, makes batches that share an account wait for each other instead.
+        void commit() throws SQLException {
+            for (Map.Entry<Integer, Double> e : balanceDeltas.entrySet()) {
+                addBalance.setDouble(1, e.getValue());
+                addBalance.setInt(2, e.getKey());
+                addBalance.addBatch();
+            }
+            addBalance.executeBatch();
+
+            int full = rows.size() - rows.size() % ROWS_PER_INSERT;
+            for (int start = 0; start < full; start += ROWS_PER_INSERT) {
+                for (int i = 0; i < ROWS_PER_INSERT; i++) bind(insertRows, i * 5, start + i);
+                insertRows.addBatch();
+                if ((start / ROWS_PER_INSERT + 1) % INSERTS_PER_BATCH == 0) insertRows.executeBatch();
+            }
+            insertRows.executeBatch();
+            for (int r = full; r < rows.size(); r++) {
+                bind(insertRow, 0, r);
+                insertRow.addBatch();
+            }
+            insertRow.executeBatch();
+
+            for (Map.Entry<Long, Double> e : dailyDeltas.entrySet()) {
+                long key = e.getKey();
+                addDaily.setInt(1, (int) (key >>> 32));
+                addDaily.setDate(2, java.sql.Date.valueOf(LocalDate.ofEpochDay((int) key)));
+                addDaily.setDouble(3, e.getValue());
+                addDaily.addBatch();
+            }
+            addDaily.executeBatch();
+            conn.commit();
+            rows.clear();
+            balanceDeltas.clear();
+            dailyDeltas.clear();
+            conn.setAutoCommit(autoCommit);
+        }
+
+        // The error that caused the rollback is the one worth reporting, so failures here are dropped
+        void rollback() {
+            rows.clear();
+            balanceDeltas.clear();
+            dailyDeltas.clear();
+            try {
+                insertRows.clearBatch();
+                insertRow.clearBatch();
+                addBalance.clearBatch();
+                addDaily.clearBatch();
+                conn.rollback();
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    // ===================== Ledger storage =====================
+    // Where accounts and postings are persisted. Implementations are safe to share
+    // between posting threads; each call runs on its own pooled connection.
+    private interface LedgerStore extends AutoCloseable {
+        void addAccount(String name, String type, double balance) throws SQLException;
+
+        // Adds the accounts not stored yet; stored ones, balances included, are left alone
+        void addMissingAccounts(List<Account> chart) throws SQLException;
+
+        // Every stored account with its current balance, in the order they were added
+        List<Account> accounts() throws SQLException;
+
+        // Every stored posting, in date order
+        List<Transaction> journal() throws SQLException;
+
+        // One DB transaction; every account named must already be stored
+        void post(List<Transaction> txs) throws SQLException;
+
+        // Postings of one account between from and to (inclusive, null = open ended), in date order
+        void ledger(String account, Date from, Date to, LedgerRowHandler out) throws SQLException;
+
+        // Balance of every account at the end of asOf; null means current balances
+        Map<String, Double> balancesAt(Date asOf) throws SQLException;
+
+        @Override
+        void close();
+    }
+
+    private interface LedgerRowHandler {
+        void row(Date date, String description, String debitAccount, String creditAccount, double amount, double runningBalance);
+    }
+
+    // Row id and posting sign of a stored account
+    private static class StoredAccount {
+        final int id;
+        final double debitSign;
+
+        StoredAccount(int id, double debitSign) {
+            this.id = id;
+            this.debitSign = debitSign;
+        }
+    }
+
+    // A connection plus the statements prepared on it
+    private static class PooledConnection {
+        private final Connection conn;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private long lastUsed = System.currentTimeMillis();
+
+        PooledConnection(Connection conn) {
+            this.conn = conn;
+        }
+
+        public Connection getConnection() { return conn; }
+
+        // Prepared once per connection and reused; callers must not close it
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = conn.prepareStatement(sql);
+                statements.put(sql, ps);
+            }
+            return ps;
+        }
+
+        void closeQuietly() {
+            try {
+                conn.close(); // closes its statements too
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    // At most size connections, opened as needed. borrow() waits while all are out and
+    // checks the connection it hands over: a closed one, or one idle long enough for the
+    // server to have dropped it that fails isValid(), is replaced by a fresh connection.
+    private static class ConnectionPool {
+        static final long VALIDATE_AFTER_MS = 5_000;
+        static final long BORROW_TIMEOUT_SECONDS = 30;
+
+        private final String url;
+        private final String user;
+        private final String pass;
+        private final Semaphore permits;
+        private final BlockingQueue<PooledConnection> idle;
+        private volatile boolean closed;
+
+        ConnectionPool(String url, String user, String pass, int size) {
+            this.url = url;
+            this.user = user;
+            this.pass = pass;
+            this.permits = new Semaphore(size, true);
+            this.idle = new ArrayBlockingQueue<>(size);
+        }
+
+        PooledConnection borrow() throws SQLException {
+            if (closed) throw new SQLException("Connection pool is closed");
+            try {
+                if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new SQLException("No database connection free after " + BORROW_TIMEOUT_SECONDS + " seconds");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection", e);
+            }
+            try {
+                PooledConnection pc = idle.poll();
+                if (pc != null && !isUsable(pc)) {
+                    pc.closeQuietly();
+                    pc = null;
+                }
+                return pc != null ? pc : new PooledConnection(DriverManager.getConnection(url, user, pass));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        // A connection that cannot even answer the check counts as unusable and is closed
+        private static boolean isUsable(PooledConnection pc) {
+            try {
+                if (pc.conn.isClosed()) return false;
+                return System.currentTimeMillis() - pc.lastUsed < VALIDATE_AFTER_MS || pc.conn.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // failure is what went wrong while it was out, or null; a lost link drops the connection,
+        // and once the pool is closed every returned connection is closed too
+        void release(PooledConnection pc, SQLException failure) {
+            try {
+                String state = failure == null ? null : failure.getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    pc.closeQuietly();
+                    return;
+                }
+                synchronized (this) {
+                    if (closed) {
+                        pc.closeQuietly();
+                    } else {
+                        pc.lastUsed = System.currentTimeMillis();
+                        idle.offer(pc);
+                    }
+                }
+            } finally {
+                permits.release();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            PooledConnection pc;
+            while ((pc = idle.poll()) != null) pc.closeQuietly();
+        }
+    }
+
+    // Posting, queries and schema upkeep shared by the JDBC stores; subclasses supply
+    // the connections and dialect. Schema: accounts keyed by integer id with their
+    // posting sign, transactions referencing them with (account, date) indexes for
+    // ledger ranges, and daily_balances holding each account's net change per day,
+    // kept at posting time so as-of balances read a short index range.
+    private abstract static class JdbcLedgerStore implements LedgerStore {
+        static final String INSERT_ACCOUNT = "INSERT INTO accounts (name, type, debit_sign, balance) VALUES (?, ?, ?, ?)";
+        static final String SELECT_ACCOUNT = "SELECT id, debit_sign FROM accounts WHERE name = ?";
+        static final String ACCOUNTS = "SELECT name, type, balance FROM accounts ORDER BY id";
+        static final String JOURNAL = "SELECT t.tx_date, t.description, d.name, c.name, t.amount"
+                + " FROM transactions t JOIN accounts d ON d.id = t.debit_account_id JOIN accounts c ON c.id = t.credit_account_id"
+                + " ORDER BY t.tx_date, t.id";
+        static final String LEDGER = "SELECT t.tx_date, t.id, t.description, d.name, c.name, t.amount, 1 AS side"
+                + " FROM transactions t JOIN accounts d ON d.id = t.debit_account_id JOIN accounts c ON c.id = t.credit_account_id"
+                + " WHERE t.debit_account_id = ? AND t.tx_date BETWEEN ? AND ?"
+                + " UNION ALL SELECT t.tx_date, t.id, t.description, d.name, c.name, t.amount, -1 AS side"
+                + " FROM transactions t JOIN accounts d ON d.id = t.debit_account_id JOIN accounts c ON c.id = t.credit_account_id"
+                + " WHERE t.credit_account_id = ? AND t.tx_date BETWEEN ? AND ?"
+                + " ORDER BY 1, 2";
+        static final String CHANGE_SINCE = "SELECT COALESCE(SUM(delta), 0) FROM daily_balances WHERE account_id = ? AND balance_date >= ?";
+        static final String BALANCE = "SELECT balance FROM accounts WHERE id = ?";
+        static final String BALANCES = "SELECT name, balance FROM accounts";
+        static final String BALANCES_AT = "SELECT a.name, a.balance - COALESCE(SUM(b.delta), 0) FROM accounts a"
+                + " LEFT JOIN daily_balances b ON b.account_id = a.id AND b.balance_date > ? GROUP BY a.id, a.name, a.balance";
+        static final java.sql.Date FIRST_DAY = java.sql.Date.valueOf("0001-01-01");
+        static final java.sql.Date LAST_DAY = java.sql.Date.valueOf("9999-12-31");
+        static final int SCHEMA_VERSION = 2;
+
+        protected final ConnectionPool pool;
+        private final Map<String, StoredAccount> accountIds = new ConcurrentHashMap<>();
+
+        JdbcLedgerStore(ConnectionPool pool) throws SQLException {
+            this.pool = pool;
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            try (Statement st = pc.getConnection().createStatement()) {
+                upgradeSchema(st);
+            } catch (SQLException e) {
+                failure = e;
+                throw e;
+            } finally {
+                // Back to the pool first, so closing the pool closes this connection too
+                pool.release(pc, failure);
+                if (failure != null) pool.close();
+            }
+        }
+
+        // DDL for the current schema; every statement must be a no-op when its object exists
+        protected abstract String[] schema();
+
+        // Adds delta to the row for (account_id, balance_date), creating it if needed
+        protected abstract String upsertDailySql();
+
+        // INSERT_ACCOUNT that skips a name already stored instead of failing
+        protected abstract String insertMissingAccountSql();
+
+        private static boolean hasColumn(Statement st, String table, String column) {
+            try {
+                st.executeQuery("SELECT " + column + " FROM " + table + " WHERE 1 = 0").close();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // Brings the database up to SCHEMA_VERSION. MySQL commits every DDL statement on
+        // its own, so the DDL steps are safe to repeat, and the row moves run in one
+        // transaction that also records the new version: an upgrade cut short leaves the
+        // version unchanged and simply runs again on the next start.
+        private void upgradeSchema(Statement st) throws SQLException {
+            st.execute("CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL)");
+            int version = 0;
+            try (ResultSet rs = st.executeQuery("SELECT MAX(version) FROM schema_version")) {
+                if (rs.next()) version = rs.getInt(1);
+            }
+            if (version >= SCHEMA_VERSION) {
+                for (String ddl : schema()) st.execute(ddl);
+                return;
+            }
+
+            // Earlier databases kept no posting sign and named accounts in transactions.
+            // debit_sign 0 marks an account whose sign and balance are not converted yet.
+            if (hasColumn(st, "accounts", "id") && !hasColumn(st, "accounts", "debit_sign")) {
+                st.execute("ALTER TABLE accounts ADD COLUMN debit_sign INT NOT NULL DEFAULT 0");
+            }
+            if (hasColumn(st, "transactions", "debit_account")) {
+                st.execute("ALTER TABLE transactions RENAME TO transactions_v1");
+            }
+            for (String ddl : schema()) st.execute(ddl);
+
+            Connection conn = st.getConnection();
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                convertAccountSigns(st);
+                if (hasColumn(st, "transactions_v1", "debit_account") && isEmpty(st, "transactions")) copyOldTransactions(st);
+                st.executeUpdate("DELETE FROM schema_version");
+                st.executeUpdate("INSERT INTO schema_version (version) VALUES (" + SCHEMA_VERSION + ")");
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                    // the upgrade error is the one worth reporting
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        private static boolean isEmpty(Statement st, String table) throws SQLException {
+            try (ResultSet rs = st.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+                return !rs.next();
+            }
+        }
+
+        // Balances were kept with debits raising only Asset and Expense; flip any whose side changed
+        private static void convertAccountSigns(Statement st) throws SQLException {
+            Map<String, String> types = new HashMap<>();
+            try (ResultSet rs = st.executeQuery("SELECT name, type FROM accounts WHERE debit_sign = 0")) {
+                while (rs.next()) types.put(rs.getString(1), rs.getString(2));
+            }
+            if (types.isEmpty()) return;
+            try (PreparedStatement ps = st.getConnection().prepareStatement(
+                    "UPDATE accounts SET debit_sign = ?, balance = balance * ? WHERE name = ? AND debit_sign = 0")) {
+                for (Map.Entry<String, String> e : types.entrySet()) {
+                    int sign = (int) AccountClass.of(e.getKey(), e.getValue()).debitSign;
+                    int oldSign = e.getValue().equals("Asset") || e.getValue().equals("Expense") ? 1 : -1;
+                    ps.setInt(1, sign);
+                    ps.setInt(2, sign * oldSign);
+                    ps.setString(3, e.getKey());
+                    ps.executeUpdate();
+                }
+            }
+        }
+
+        // Old rows are re-keyed by account id and summarised per day; transactions_v1 is
+        // left in place as a backup (rows naming unknown accounts stay only there)
+        private static void copyOldTransactions(Statement st) throws SQLException {
+            st.execute("INSERT INTO transactions (tx_date, description, debit_account_id, credit_account_id, amount)"
+                    + " SELECT t.tx_date, t.description, d.id, c.id, t.amount FROM transactions_v1 t"
+                    + " JOIN accounts d ON d.name = t.debit_account JOIN accounts c ON c.name = t.credit_account ORDER BY t.id");
+            st.execute("INSERT INTO daily_balances (account_id, balance_date, delta)"
+                    + " SELECT account_id, tx_date, SUM(delta) FROM ("
+                    + " SELECT t.debit_account_id AS account_id, t.tx_date, a.debit_sign * t.amount AS delta"
+                    + " FROM transactions t JOIN accounts a ON a.id = t.debit_account_id"
+                    + " UNION ALL SELECT t.credit_account_id, t.tx_date, -a.debit_sign * t.amount"
+                    + " FROM transactions t JOIN accounts a ON a.id = t.credit_account_id) x"
+                    + " GROUP BY account_id, tx_date");
+        }
+
+        private StoredAccount storedAccount(PooledConnection pc, String name) throws SQLException {
+            StoredAccount a = accountIds.get(name);
+            if (a != null) return a;
+            PreparedStatement ps = pc.prepare(SELECT_ACCOUNT);
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new SQLException("Unknown account: " + name);
+                a = new StoredAccount(rs.getInt(1), rs.getInt(2));
+            }
+            accountIds.put(name, a);
+            return a;
+        }
+
+        @Override
+        public void addAccount(String name, String type, double balance) throws SQLException {
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            try {
+                PreparedStatement ps = pc.prepare(INSERT_ACCOUNT);
+                ps.setString(1, name);
+                ps.setString(2, type);
+                ps.setInt(3, (int) AccountClass.of(name, type).debitSign);
+                ps.setDouble(4, balance);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                failure = e;
+                throw e;
+            } finally {
+                pool.release(pc, failure);
+            }
+        }
+
+        @Override
+        public void addMissingAccounts(List<Account> chart) throws SQLException {
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            try {
+                PreparedStatement ps = pc.prepare(insertMissingAccountSql());
+                for (Account a : chart) {
+                    ps.setString(1, a.getName());
+                    ps.setString(2, a.getType());
+                    ps.setInt(3, (int) a.getAccountClass().debitSign);
+                    ps.setDouble(4, a.getBalance());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            } catch (SQLException e) {
+                failure = e;
+                throw e;
+            } finally {
+                pool.release(pc, failure);
+            }
+        }
+
+        @Override
+        public List<Account> accounts() throws SQLException {
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            try {
+                List<Account> chart = new ArrayList<>();
+                try (ResultSet rs = pc.prepare(ACCOUNTS).executeQuery()) {
+                    while (rs.next()) chart.add(new Account(rs.getString(1), rs.getString(2), rs.getDouble(3)));
+                }
+                return chart;
+            } catch (SQLException e) {
+                failure = e;
+                throw e;
+            } finally {
+                pool.release(pc, failure);
+            }
+        }
+
+        @Override
+        public List<Transaction> journal() throws SQLException {
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            try {
+                List<Transaction> txs = new ArrayList<>();
+                try (ResultSet rs = pc.prepare(JOURNAL).executeQuery()) {
+                    while (rs.next()) {
+                        txs.add(new Transaction(new Date(rs.getDate(1).getTime()), rs.getString(2),
+                                rs.getString(3), rs.getString(4), rs.getDouble(5)));
+                    }
+                }
+                return txs;
+            } catch (SQLException e) {
+                failure = e;
+                throw e;
+            } finally {
+                pool.release(pc, failure);
+            }
+        }
+
+        @Override
+        public void post(List<Transaction> txs) throws SQLException {
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            PostingBatch batch = null;
+            try {
+                batch = new PostingBatch(pc, upsertDailySql());
+                for (Transaction tx : txs) {
+                    batch.add(tx, storedAccount(pc, tx.getDebitAccount()), storedAccount(pc, tx.getCreditAccount()));
+                }
+                batch.commit();
+            } catch (SQLException | RuntimeException e) {
+                // A RuntimeException (say, a posting with no date) leaves the connection
+                // usable, but not with a half-written batch on it
+                if (e instanceof SQLException) failure = (SQLException) e;
+                if (batch != null) batch.rollback();
+                throw e;
+            } finally {
+                pool.release(pc, failure);
+            }
+        }
+
+        @Override
+        public void ledger(String account, Date from, Date to, LedgerRowHandler out) throws SQLException {
+            java.sql.Date start = from == null ? FIRST_DAY : new java.sql.Date(from.getTime());
+            java.sql.Date end = to == null ? LAST_DAY : new java.sql.Date(to.getTime());
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            try {
+                StoredAccount a = storedAccount(pc, account);
+                // Opening balance: the current one less everything from the start date on
+                double running = 0.0;
+                PreparedStatement ps = pc.prepare(BALANCE);
+                ps.setInt(1, a.id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) running = rs.getDouble(1);
+                }
+                ps = pc.prepare(CHANGE_SINCE);
+                ps.setInt(1, a.id);
+                ps.setDate(2, start);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) running -= rs.getDouble(1);
+                }
+
+                ps = pc.prepare(LEDGER);
+                ps.setInt(1, a.id);
+                ps.setDate(2, start);
+                ps.setDate(3, end);
+                ps.setInt(4, a.id);
+                ps.setDate(5, start);
+                ps.setDate(6, end);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        double amount = rs.getDouble(6);
+                        running += rs.getInt(7) * a.debitSign * amount;
+                        out.row(rs.getDate(1), rs.getString(3), rs.getString(4), rs.getString(5), amount, running);
+                    }
+                }
+            } catch (SQLException e) {
+                failure = e;
+                throw e;
+            } finally {
+                pool.release(pc, failure);
+            }
+        }
+
+        @Override
+        public Map<String, Double> balancesAt(Date asOf) throws SQLException {
+            PooledConnection pc = pool.borrow();
+            SQLException failure = null;
+            try {
+                PreparedStatement ps = pc.prepare(asOf == null ? BALANCES : BALANCES_AT);
+                if (asOf != null) ps.setDate(1, new java.sql.Date(asOf.getTime()));
+                Map<String, Double> balances = new HashMap<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) balances.put(rs.getString(1), rs.getDouble(2));
+                }
+                return balances;
+            } catch (SQLException e) {
+                failure = e;
+                throw e;
+            } finally {
+                pool.release(pc, failure);
+            }
+        }
+
+        @Override
+        public void close() {
+            pool.close();
+        }
+    }
+
+    // MySQL server behind a bounded pool, so posting threads each get their own connection
+public static class DatabaseManagerMySQL extends JdbcLedgerStore {
+    static final int POOL_SIZE = 8;
+
+    public DatabaseManagerMySQL() throws SQLException {
+        // rewriteBatchedStatements lets the driver send a JDBC batch as multi-row statements
+        this("jdbc:mysql://localhost:3306/accounting_db?rewriteBatchedStatements=true", // database name
+                "root", // imong MySQL user
+                "your_password", // imong password
+                POOL_SIZE);
+    }
+
+    public DatabaseManagerMySQL(String url, String user, String pass, int poolSize) throws SQLException {
+        super(new ConnectionPool(url, user, pass, poolSize)); // auto-create kung wala pa
+    }
+
+    @Override
+    protected String[] schema() {
         String createAccounts = """
             CREATE TABLE IF NOT EXISTS accounts (
                 id INT AUTO_INCREMENT PRIMARY KEY,
                 name VARCHAR(100) UNIQUE NOT NULL,
                 type VARCHAR(50) NOT NULL,
+                debit_sign INT NOT NULL DEFAULT 1,
                 balance DOUBLE DEFAULT 0
             )
         """;
@@ -1004,32 +2253,98 @@ public class DatabaseManagerMySQL {
                 id INT AUTO_INCREMENT PRIMARY KEY,
                 tx_date DATE NOT NULL,
                 description VARCHAR(255),
-                debit_account VARCHAR(100),
-                credit_account VARCHAR(100),
-                amount DOUBLE
+                debit_account_id INT NOT NULL,
+                credit_account_id INT NOT NULL,
+                amount DOUBLE NOT NULL,
+                FOREIGN KEY (debit_account_id) REFERENCES accounts(id),
+                FOREIGN KEY (credit_account_id) REFERENCES accounts(id),
+                INDEX idx_tx_debit (debit_account_id, tx_date),
+                INDEX idx_tx_credit (credit_account_id, tx_date),
+                INDEX idx_tx_date (tx_date)
+            )
+        """;
+
+        String createDailyBalances = """
+            CREATE TABLE IF NOT EXISTS daily_balances (
+                account_id INT NOT NULL,
+                balance_date DATE NOT NULL,
+                delta DOUBLE NOT NULL,
+                PRIMARY KEY (account_id, balance_date),
+                FOREIGN KEY (account_id) REFERENCES accounts(id)
             )
         """;
 
-        conn.createStatement().execute(createAccounts);
-        conn.createStatement().execute(createTransactions);
+        return new String[]{createAccounts, createTransactions, createDailyBalances};
+    }
+
+    @Override
+    protected String upsertDailySql() {
+        return "INSERT INTO daily_balances (account_id, balance_date, delta) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE delta = delta + VALUES(delta)";
     }
 
-    public Connection getConnection() { return conn; }
+    @Override
+    protected String insertMissingAccountSql() {
+        return "INSERT IGNORE INTO accounts (name, type, debit_sign, balance) VALUES (?, ?, ?, ?)";
+    }
 }
 
+    // Local SQLite file for offline use; needs sqlite-jdbc on the classpath. SQLite takes
+    // one writer at a time, so the pool holds a single connection and posters queue for it.
+    private static class EmbeddedLedgerStore extends JdbcLedgerStore {
+        EmbeddedLedgerStore(File file) throws SQLException {
+            super(new ConnectionPool("jdbc:sqlite:" + file.getAbsolutePath(), null, null, 1));
+        }
 
-        public void cleanup() {
-            try {
-                if (conn != null && !conn.isClosed()) {
-                    conn.close();
-                    logger.info("Database connection closed - all data cleared");
-                }
-            } catch (SQLException e) {
-                logger.severe("Error closing database: " + e.getMessage());
-            }
+        @Override
+        protected String[] schema() {
+            return new String[]{
+                "PRAGMA journal_mode=WAL",
+                """
+                CREATE TABLE IF NOT EXISTS accounts (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    name VARCHAR(100) UNIQUE NOT NULL,
+                    type VARCHAR(50) NOT NULL,
+                    debit_sign INT NOT NULL DEFAULT 1,
+                    balance DOUBLE DEFAULT 0
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS transactions (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    tx_date DATE NOT NULL,
+                    description VARCHAR(255),
+                    debit_account_id INT NOT NULL REFERENCES accounts(id),
+                    credit_account_id INT NOT NULL REFERENCES accounts(id),
+                    amount DOUBLE NOT NULL
+                )
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_tx_debit ON transactions (debit_account_id, tx_date)",
+                "CREATE INDEX IF NOT EXISTS idx_tx_credit ON transactions (credit_account_id, tx_date)",
+                "CREATE INDEX IF NOT EXISTS idx_tx_date ON transactions (tx_date)",
+                """
+                CREATE TABLE IF NOT EXISTS daily_balances (
+                    account_id INT NOT NULL REFERENCES accounts(id),
+                    balance_date DATE NOT NULL,
+                    delta DOUBLE NOT NULL,
+                    PRIMARY KEY (account_id, balance_date)
+                )
+                """
+            };
+        }
+
+        @Override
+        protected String upsertDailySql() {
+            return "INSERT INTO daily_balances (account_id, balance_date, delta) VALUES (?, ?, ?)"
+                    + " ON CONFLICT (account_id, balance_date) DO UPDATE SET delta = delta + excluded.delta";
+        }
+
+        @Override
+        protected String insertMissingAccountSql() {
+            return INSERT_ACCOUNT + " ON CONFLICT (name) DO NOTHING";
         }
     }
 
+
     // ===================== Main =====================
     public static void main(String[] args) {
         // Use SwingUtilities to start GUI on EDT